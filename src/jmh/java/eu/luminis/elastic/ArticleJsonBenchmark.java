@@ -0,0 +1,78 @@
+package eu.luminis.elastic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.internal.InternalSearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of articles from and to json, as done for every hit and every indexed article. The
+ * stringRoundTrip benchmark is the conversion as it was done before reading directly from the source bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArticleJsonBenchmark {
+    private ArticleJson articleJson;
+    private ObjectMapper objectMapper;
+    private Article article;
+    private InternalSearchHit hit;
+
+    @Setup
+    public void setup() throws IOException {
+        articleJson = new ArticleJson();
+        objectMapper = new ObjectMapper();
+        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        objectMapper.registerModule(new JavaTimeModule());
+
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            description.append("Elasticsearch vanuit Java, zoeken in artikelen met de transport client. ");
+        }
+        article = new Article()
+                .setTitle("Elasticsearch vanuit Java")
+                .setAuthor("Jettro Coenradie")
+                .setIssue("Java Magazine 1 2017")
+                .setLink("http://www.nljug.org/databasejava/elasticsearch-java/")
+                .setDescription(description.toString())
+                .setPostDate(LocalDate.now());
+
+        hit = new InternalSearchHit(0, "1", new Text("article"), Collections.emptyMap());
+        hit.sourceRef(new BytesArray(articleJson.write(article)));
+    }
+
+    @Benchmark
+    public Article readHit() throws IOException {
+        return articleJson.read(hit);
+    }
+
+    @Benchmark
+    public Article stringRoundTrip() throws IOException {
+        return objectMapper.readValue(hit.getSourceAsString(), Article.class);
+    }
+
+    @Benchmark
+    public byte[] writeArticle() throws IOException {
+        return articleJson.write(article);
+    }
+}
@@ -0,0 +1,235 @@
+package eu.luminis.elastic;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static eu.luminis.elastic.Constants.CLUSTER_NAME;
+import static eu.luminis.elastic.Constants.HOSTS;
+
+/**
+ * <p>Load generator for the {@link ArticleRepository}, replays a weighted mix of searches and aggregations from a
+ * number of threads and reports the throughput and latency percentiles per operation. Latencies are also reported per
+ * repository method as measured by the cluster and by the client, the difference is the time spent on the network
+ * and in the client. The cluster reports whole milliseconds.</p>
+ * <p>Without a rate the generator runs a closed loop, every thread sends the next request when the previous one
+ * completed. With a rate it runs an open loop, requests are scheduled at a fixed interval and the latency is measured
+ * from the scheduled start. A slow response then also counts for the requests that had to wait for it, which avoids
+ * coordinated omission. Use enough threads to keep up with the rate.</p>
+ * <p>By default the embedded node of {@link ElasticTestCase} is started and loaded with a generated corpus, pass
+ * <em>--cluster</em> to use the articles in the cluster configured in {@link Constants}. Options:</p>
+ * <pre>
+ * --threads=8          number of threads sending requests
+ * --rate=0             requests per second, 0 for a closed loop
+ * --warmup=10          seconds before measuring starts
+ * --duration=30        seconds to measure
+ * --mix=search:40,filterAuthor:20,filterIssue:20,authors:10,issues:10
+ * --articles=5000      size of the generated corpus for the embedded node
+ * --cluster            use the configured cluster instead of the embedded node
+ * </pre>
+ */
+public class ArticleLoadGenerator {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final String DEFAULT_MIX = "search:40,filterAuthor:20,filterIssue:20,authors:10,issues:10";
+
+    private final ArticleRepository repository;
+    private final Map<String, Integer> mix;
+    private final int totalWeight;
+    private final List<String> authors;
+    private final List<String> issues;
+
+    ArticleLoadGenerator(ArticleRepository repository, Map<String, Integer> mix) {
+        this.repository = repository;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.authors = new ArrayList<>(repository.findAuthors().keySet());
+        this.issues = new ArrayList<>(repository.findIssues().keySet());
+    }
+
+    /**
+     * Runs the load and returns the latencies of the requests that started after the warmup.
+     *
+     * @param threads  Number of threads sending requests
+     * @param rate     Requests per second for an open loop, 0 for a closed loop
+     * @param warmup   Seconds to run before measuring
+     * @param duration Seconds to measure
+     * @param metrics  Metrics of the repository, reset when the warmup ends
+     * @return RunSummary with the latencies per operation in microseconds
+     */
+    ScriptedQueryRunner.RunSummary run(int threads, double rate, int warmup, int duration,
+                                       HistogramRepositoryMetrics metrics) throws Exception {
+        Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+        LongAdder errors = new LongAdder();
+        AtomicLong nextRequest = new AtomicLong();
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(duration);
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    while (true) {
+                        long intendedStart;
+                        if (intervalNanos > 0) {
+                            intendedStart = start + nextRequest.getAndIncrement() * intervalNanos;
+                            if (intendedStart >= end) {
+                                return;
+                            }
+                            long wait;
+                            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                                LockSupport.parkNanos(wait);
+                            }
+                        } else {
+                            intendedStart = System.nanoTime();
+                            if (intendedStart >= end) {
+                                return;
+                            }
+                        }
+
+                        String operation = nextOperation();
+                        boolean failed = false;
+                        try {
+                            execute(operation);
+                        } catch (RuntimeException e) {
+                            failed = true;
+                        }
+                        if (intendedStart >= measureStart) {
+                            latencies.computeIfAbsent(operation, key -> new ConcurrentHistogram(SIGNIFICANT_DIGITS))
+                                    .recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart));
+                            if (failed) {
+                                errors.increment();
+                            }
+                        }
+                    }
+                }));
+            }
+
+            TimeUnit.NANOSECONDS.sleep(measureStart - System.nanoTime());
+            metrics.getMethodMetrics().values().forEach(MethodMetricsMXBean::reset);
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new ScriptedQueryRunner.RunSummary(latencies, errors.sum(), end - measureStart);
+    }
+
+    private String nextOperation() {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Weights of the mix changed");
+    }
+
+    private void execute(String operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String word = BenchmarkCorpus.WORDS[random.nextInt(BenchmarkCorpus.WORDS.length)];
+        switch (operation) {
+            case "search":
+                repository.searchArticlesBy(word);
+                break;
+            case "filterAuthor":
+                repository.searchAndFilterAuthorArticlesBy(authors.get(random.nextInt(authors.size())), word);
+                break;
+            case "filterIssue":
+                repository.searchAndFilterIssueArticlesBy(issues.get(random.nextInt(issues.size())), word);
+                break;
+            case "authors":
+                repository.findAuthors();
+                break;
+            case "issues":
+                repository.findIssues();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            weights.put(parts[0].trim(), parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+        }
+        return weights;
+    }
+
+    private static void printMethodMetrics(HistogramRepositoryMetrics metrics, PrintWriter output) {
+        output.println();
+        output.println(String.format(Locale.ROOT, "%-32s %9s %9s %9s %9s",
+                "repository method", "client50", "client99", "server50", "server99"));
+        metrics.getMethodMetrics().forEach((method, methodMetrics) -> output.println(String.format(Locale.ROOT,
+                "%-32s %9.2f %9.2f %9.2f %9.2f", method, methodMetrics.getClientLatencyP50(),
+                methodMetrics.getClientLatencyP99(), methodMetrics.getServerLatencyP50(),
+                methodMetrics.getServerLatencyP99())));
+        output.flush();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(parts[0], parts.length > 1 ? parts[1] : "true");
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int articles = Integer.parseInt(options.getOrDefault("articles", "5000"));
+        Map<String, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        boolean cluster = options.containsKey("cluster");
+
+        HistogramRepositoryMetrics metrics = new HistogramRepositoryMetrics();
+        ElasticClientFactory clientFactory = null;
+        try {
+            ArticleRepository repository;
+            if (cluster) {
+                clientFactory = new ElasticClientFactory(CLUSTER_NAME, HOSTS);
+                repository = new ArticleRepository(clientFactory.obtainClient(), metrics);
+            } else {
+                ElasticTestCase.setupOnce();
+                repository = new ArticleRepository(ElasticTestCase.client(), metrics);
+                BenchmarkCorpus.load(repository, articles);
+            }
+
+            PrintWriter output = new PrintWriter(System.out);
+            output.println(String.format(Locale.ROOT, "Running %s loop with %d threads%s for %d s after %d s warmup",
+                    rate > 0 ? "an open" : "a closed", threads, rate > 0 ? " at " + rate + " requests/s" : "",
+                    duration, warmup));
+            output.flush();
+
+            new ArticleLoadGenerator(repository, mix).run(threads, rate, warmup, duration, metrics).print(output);
+            printMethodMetrics(metrics, output);
+        } finally {
+            if (clientFactory != null) {
+                clientFactory.close();
+            } else if (!cluster) {
+                ElasticTestCase.teardownOnce();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package eu.luminis.elastic;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing the stored overview pages into articles, both the html parsing by Jsoup and the extraction of the
+ * articles from the parsed document, and parsing the articles straight from the bytes of a page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArticleParsingBenchmark {
+    private JavaMagazineReader reader;
+    private ArticleParser parser;
+    private String html;
+    private byte[] htmlBytes;
+    private Document document;
+
+    @Setup
+    public void setup() throws IOException {
+        reader = new JavaMagazineReader(page -> document);
+        parser = new ArticleParser();
+        html = readFixture("/fixtures/page-1.html");
+        htmlBytes = html.getBytes(StandardCharsets.UTF_8);
+        document = Jsoup.parse(html, JsoupPageFetcher.BASE_URL + 1);
+    }
+
+    @Benchmark
+    public List<Article> parseHtmlAndArticles() {
+        return reader.parseArticles(Jsoup.parse(html, JsoupPageFetcher.BASE_URL + 1));
+    }
+
+    @Benchmark
+    public List<Article> parseArticles() {
+        return reader.parseArticles(document);
+    }
+
+    @Benchmark
+    public List<Article> parseArticlesFromStream() throws IOException {
+        return parser.parse(new ByteArrayInputStream(htmlBytes), "UTF-8", JsoupPageFetcher.BASE_URL + 1);
+    }
+
+    private static String readFixture(String name) throws IOException {
+        try (InputStream inputStream = ArticleParsingBenchmark.class.getResourceAsStream(name)) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package eu.luminis.elastic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end measurement of searches and aggregations against the embedded node of {@link ElasticTestCase}, which
+ * uses the local transport. The index contains a generated corpus of articles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArticleSearchBenchmark {
+    private static final int NUM_ARTICLES = 5000;
+
+    private ArticleRepository articleRepository;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ElasticTestCase.setupOnce();
+        articleRepository = new ArticleRepository(ElasticTestCase.client());
+        BenchmarkCorpus.load(articleRepository, NUM_ARTICLES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ElasticTestCase.teardownOnce();
+    }
+
+    @Benchmark
+    public List<Article> searchArticlesBy() {
+        return articleRepository.searchArticlesBy("lambda");
+    }
+
+    @Benchmark
+    public List<Article> searchAndFilterAuthorArticlesBy() {
+        return articleRepository.searchAndFilterAuthorArticlesBy("Author 7", "java");
+    }
+
+    @Benchmark
+    public List<Article> findAllArticlesForIssuePage() {
+        return articleRepository.findAllArticlesForIssue("Issue 3", 0, 100);
+    }
+
+    @Benchmark
+    public Map<String, Long> findAuthors() {
+        return articleRepository.findAuthors();
+    }
+
+    @Benchmark
+    public Map<String, Long> findIssues() {
+        return articleRepository.findIssues();
+    }
+}
@@ -0,0 +1,35 @@
+package eu.luminis.elastic;
+
+import java.time.LocalDate;
+
+/**
+ * Generated corpus of articles shared by the benchmarks and the load generator, the words, authors and issues are
+ * spread evenly over the articles.
+ */
+final class BenchmarkCorpus {
+    static final String[] WORDS = {"java", "elasticsearch", "lambda", "modules", "streams", "spring", "kotlin",
+            "testing", "microservices", "docker"};
+    static final int NUM_AUTHORS = 50;
+    static final int NUM_ISSUES = 20;
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Replaces the articles index with a new index containing the generated articles.
+     */
+    static void load(ArticleRepository articleRepository, int numArticles) {
+        articleRepository.rebuildIndex(bulkIndexer -> {
+            for (int i = 0; i < numArticles; i++) {
+                bulkIndexer.add(new Article()
+                        .setTitle("Article about " + WORDS[i % WORDS.length] + " " + i)
+                        .setAuthor("Author " + (i % NUM_AUTHORS))
+                        .setIssue("Issue " + (i % NUM_ISSUES))
+                        .setLink("/link/" + i)
+                        .setDescription("Description about " + WORDS[i % WORDS.length] + " and "
+                                + WORDS[(i * 7) % WORDS.length])
+                        .setPostDate(LocalDate.now()));
+            }
+        });
+    }
+}
@@ -2,7 +2,7 @@ package eu.luminis.elastic;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 
-import java.util.Date;
+import java.time.LocalDate;
 
 /**
  * Representation of an article on the website.
@@ -14,7 +14,8 @@ public class Article {
     private String link;
     private String description;
     @JsonFormat(pattern = "yyyy-MM-dd")
-    private Date postDate;
+    private LocalDate postDate;
+    private String contentHash;
 
     public String getTitle() {
         return title;
@@ -61,15 +62,24 @@ public class Article {
         return this;
     }
 
-    public Date getPostDate() {
+    public LocalDate getPostDate() {
         return postDate;
     }
 
-    public Article setPostDate(Date postDate) {
+    public Article setPostDate(LocalDate postDate) {
         this.postDate = postDate;
         return this;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public Article setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "Article{" +
@@ -0,0 +1,208 @@
+package eu.luminis.elastic;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Indexes articles in batches using the elasticsearch {@link BulkProcessor}. Articles are collected and sent to the
+ * cluster once one of the thresholds of the {@link BulkIndexConfig} is reached.</p>
+ * <p>Articles that fail are reported to the provided {@link BulkFailureListener}. Always close the indexer to flush
+ * the articles that are still pending.</p>
+ */
+public class ArticleBulkIndexer implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(ArticleBulkIndexer.class);
+    private static final long CLOSE_TIMEOUT_MINUTES = 5;
+
+    private final String index;
+    private final ObjectWriter articleWriter;
+    private final BulkFailureListener failureListener;
+    private final BulkProcessor bulkProcessor;
+
+    private final AtomicLong indexedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong sourceFailureCount = new AtomicLong();
+
+    ArticleBulkIndexer(Client client, String index, ObjectWriter articleWriter, BulkIndexConfig config,
+                       BulkFailureListener failureListener) {
+        this.index = index;
+        this.articleWriter = articleWriter;
+        this.failureListener = failureListener;
+        this.bulkProcessor = BulkProcessor.builder(client, new ArticleBulkListener())
+                .setName("article-bulk-indexer")
+                .setBulkActions(config.getBulkActions())
+                .setBulkSize(config.getBulkSize())
+                .setFlushInterval(config.getFlushInterval())
+                .setConcurrentRequests(config.getConcurrentRequests())
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff())
+                .build();
+    }
+
+    /**
+     * Adds the article to the pending bulk request, the article is sent to the cluster with the next flush.
+     *
+     * @param article Article object to index.
+     */
+    public void add(Article article) {
+        try {
+            byte[] source = articleWriter.writeValueAsBytes(article);
+            IndexRequest request = new IndexRequest(index, "article", ArticleFingerprints.documentId(article))
+                    .source(source, XContentType.JSON);
+            bulkProcessor.add(request, article);
+        } catch (JsonProcessingException e) {
+            reportSerializationFailure(article, e);
+        }
+    }
+
+    /**
+     * Adds an update of the article to the pending bulk request. The fields of the existing document with the same
+     * link are replaced, when there is no such document the article is created.
+     *
+     * @param article Article object to create or update, must have a link.
+     */
+    public void upsert(Article article) {
+        try {
+            byte[] source = articleWriter.writeValueAsBytes(article);
+            UpdateRequest request = new UpdateRequest(index, "article", ArticleFingerprints.documentId(article))
+                    .doc(source, XContentType.JSON)
+                    .docAsUpsert(true);
+            bulkProcessor.add(request, article);
+        } catch (JsonProcessingException e) {
+            reportSerializationFailure(article, e);
+        }
+    }
+
+    /**
+     * Reports sources of articles that could not be read, like pages that could not be fetched. The articles of these
+     * sources never reach the indexer, a rebuild with source failures is incomplete.
+     *
+     * @param count Number of sources that could not be read
+     */
+    public void reportSourceFailures(long count) {
+        sourceFailureCount.addAndGet(count);
+    }
+
+    /**
+     * Sends the pending articles to the cluster without waiting for the thresholds.
+     */
+    public void flush() {
+        bulkProcessor.flush();
+    }
+
+    /**
+     * @return Number of articles that were successfully indexed
+     */
+    public long getIndexedCount() {
+        return indexedCount.get();
+    }
+
+    /**
+     * @return Number of articles that could not be indexed
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return Number of sources that could not be read as reported by the loader
+     */
+    public long getSourceFailureCount() {
+        return sourceFailureCount.get();
+    }
+
+    /**
+     * Flushes the pending articles and waits for all outstanding bulk requests to finish.
+     */
+    @Override
+    public void close() {
+        try {
+            if (!bulkProcessor.awaitClose(CLOSE_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                throw new ElasticExecutionException("Timeout while waiting for the bulk requests to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticExecutionException("Interrupted while waiting for the bulk requests to finish");
+        }
+    }
+
+    private void reportSerializationFailure(Article article, JsonProcessingException e) {
+        logger.error("Error serializing article", e);
+        failedCount.incrementAndGet();
+        failureListener.onFailure(article, "Error serializing article: " + e.getMessage());
+    }
+
+    private class ArticleBulkListener implements BulkProcessor.Listener {
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            logger.debug("Sending bulk {} with {} articles", executionId, request.numberOfActions());
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            Map<String, Article> articlesById = null;
+            for (BulkItemResponse item : response.getItems()) {
+                if (item.isFailed()) {
+                    if (articlesById == null) {
+                        articlesById = articlesById(request);
+                    }
+                    failedCount.incrementAndGet();
+                    failureListener.onFailure(articleFor(request, articlesById, item), item.getFailureMessage());
+                } else {
+                    indexedCount.incrementAndGet();
+                }
+            }
+            logger.debug("Finished bulk {} in {} ms", executionId, response.getTookInMillis());
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            logger.error("Error executing bulk " + executionId, failure);
+            for (int i = 0; i < request.numberOfActions(); i++) {
+                failedCount.incrementAndGet();
+                failureListener.onFailure(articleFor(request, i), failure.getMessage());
+            }
+        }
+
+        private Article articleFor(BulkRequest request, int itemId) {
+            return (Article) request.payloads().get(itemId);
+        }
+
+        /**
+         * Finds the article of a response item by its document id. The item id is not usable after a retry: the
+         * rejected items are sent again in a smaller request and the item ids of the final response are positions in
+         * that request. Articles without a link get a generated id, only those are looked up by position.
+         */
+        private Article articleFor(BulkRequest request, Map<String, Article> articlesById, BulkItemResponse item) {
+            Article article = articlesById.get(item.getId());
+            return article != null ? article : articleFor(request, item.getItemId());
+        }
+
+        private Map<String, Article> articlesById(BulkRequest request) {
+            Map<String, Article> articles = new HashMap<>();
+            List<DocWriteRequest> requests = request.requests();
+            for (int i = 0; i < requests.size(); i++) {
+                if (requests.get(i).id() != null) {
+                    articles.put(requests.get(i).id(), (Article) request.payloads().get(i));
+                }
+            }
+            return articles;
+        }
+    }
+}
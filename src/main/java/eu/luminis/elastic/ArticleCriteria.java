@@ -0,0 +1,200 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+
+/**
+ * <p>Criteria to find articles by any combination of authors, issues, a range of post dates and a free text search.
+ * Only the free text search influences the score, the other criteria are added as filters. Filters do not score and
+ * are cached by the nodes, repeating the same filters with another search text reuses the cached filters.</p>
+ * <p>Facets request the number of matching articles per author or issue in the same request as the articles, see
+ * {@link ArticleRepository#searchArticles(ArticleCriteria, int, int)}. Empty or null values are ignored, criteria
+ * without any values match all articles.</p>
+ * <p>For result pages request highlighted fragments together with only the fields that are shown, the size of a hit
+ * then no longer depends on the length of the description.</p>
+ */
+public class ArticleCriteria {
+    public static final String AUTHOR = "author";
+    public static final String ISSUE = "issue";
+    public static final String TITLE = "title";
+    public static final String DESCRIPTION = "description";
+
+    private final List<String> authors = new ArrayList<>();
+    private final List<String> issues = new ArrayList<>();
+    private LocalDate postedFrom;
+    private LocalDate postedTo;
+    private String text;
+    private List<String> facets = Collections.emptyList();
+    private int facetSize = 10;
+    private int fragmentSize;
+    private int numberOfFragments;
+    private String[] sourceFields;
+
+    /**
+     * @param authors Articles must be written by one of these authors
+     * @return this criteria
+     */
+    public ArticleCriteria withAuthors(String... authors) {
+        this.authors.addAll(nonEmpty(authors));
+        return this;
+    }
+
+    /**
+     * @param issues Articles must be part of one of these issues
+     * @return this criteria
+     */
+    public ArticleCriteria withIssues(String... issues) {
+        this.issues.addAll(nonEmpty(issues));
+        return this;
+    }
+
+    /**
+     * @param from First post date to include, null for no lower bound
+     * @param to   Last post date to include, null for no upper bound
+     * @return this criteria
+     */
+    public ArticleCriteria postedBetween(LocalDate from, LocalDate to) {
+        this.postedFrom = from;
+        this.postedTo = to;
+        return this;
+    }
+
+    /**
+     * @param text Text to search for in the title and description fields
+     * @return this criteria
+     */
+    public ArticleCriteria withText(String text) {
+        this.text = text;
+        return this;
+    }
+
+    /**
+     * @param fields Fields to count the matching articles for, {@link #AUTHOR} and {@link #ISSUE}
+     * @return this criteria
+     */
+    public ArticleCriteria withFacets(String... fields) {
+        this.facets = Arrays.asList(fields);
+        return this;
+    }
+
+    /**
+     * @param facetSize Maximum number of values returned per facet, the values with most articles first
+     * @return this criteria
+     */
+    public ArticleCriteria setFacetSize(int facetSize) {
+        this.facetSize = facetSize;
+        return this;
+    }
+
+    /**
+     * Requests fragments of the title and description with the words of the search text between &lt;em&gt; tags.
+     * Fields without a match return their first fragment unhighlighted, so every article has a snippet.
+     *
+     * @param fragmentSize      Maximum number of characters per fragment
+     * @param numberOfFragments Maximum number of fragments per field, the best scoring fragments first
+     * @return this criteria
+     */
+    public ArticleCriteria withHighlight(int fragmentSize, int numberOfFragments) {
+        this.fragmentSize = fragmentSize;
+        this.numberOfFragments = numberOfFragments;
+        return this;
+    }
+
+    /**
+     * @param fields Fields of the articles to return, like {@link #TITLE} and <em>link</em>, all fields when empty
+     * @return this criteria
+     */
+    public ArticleCriteria withSourceFields(String... fields) {
+        this.sourceFields = fields.length == 0 ? null : fields;
+        return this;
+    }
+
+    List<String> getFacets() {
+        return facets;
+    }
+
+    int getFacetSize() {
+        return facetSize;
+    }
+
+    String[] getSourceFields() {
+        return sourceFields;
+    }
+
+    /**
+     * Creates the highlight of the title and description, null when no highlight was requested.
+     */
+    HighlightBuilder toHighlight() {
+        if (numberOfFragments <= 0) {
+            return null;
+        }
+        return new HighlightBuilder()
+                .field(TITLE)
+                .field(DESCRIPTION)
+                .fragmentSize(fragmentSize)
+                .numOfFragments(numberOfFragments)
+                .noMatchSize(fragmentSize);
+    }
+
+    /**
+     * Creates the query, the text search in the scoring part and all other criteria as filters.
+     */
+    QueryBuilder toQuery() {
+        boolean hasText = text != null && !text.isEmpty();
+        List<QueryBuilder> filters = filters();
+        if (filters.isEmpty()) {
+            return hasText ? multiMatchQuery(text, DESCRIPTION, TITLE) : matchAllQuery();
+        }
+
+        BoolQueryBuilder query = boolQuery();
+        if (hasText) {
+            query.must(multiMatchQuery(text, DESCRIPTION, TITLE));
+        }
+        filters.forEach(query::filter);
+        return query;
+    }
+
+    private List<QueryBuilder> filters() {
+        List<QueryBuilder> filters = new ArrayList<>();
+        if (!authors.isEmpty()) {
+            filters.add(termsQuery(AUTHOR, authors));
+        }
+        if (!issues.isEmpty()) {
+            filters.add(termsQuery(ISSUE, issues));
+        }
+        if (postedFrom != null || postedTo != null) {
+            RangeQueryBuilder range = rangeQuery("postDate");
+            if (postedFrom != null) {
+                range.gte(postedFrom.toString());
+            }
+            if (postedTo != null) {
+                range.lte(postedTo.toString());
+            }
+            filters.add(range);
+        }
+        return filters;
+    }
+
+    private static List<String> nonEmpty(String[] values) {
+        return Arrays.stream(values)
+                .filter(Objects::nonNull)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,61 @@
+package eu.luminis.elastic;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Creates the document id and the content hash of articles. The document id is derived from the link, so indexing
+ * the same article again overwrites the existing document. The content hash changes when any of the other fields
+ * changes and is used to detect changed articles.
+ */
+final class ArticleFingerprints {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char SEPARATOR = '\u001f';
+
+    private ArticleFingerprints() {
+    }
+
+    /**
+     * @param article Article to create the id for
+     * @return String with the SHA-1 of the link in hex, null when the article has no link
+     */
+    static String documentId(Article article) {
+        if (article.getLink() == null) {
+            return null;
+        }
+        return hex(digest("SHA-1", article.getLink()));
+    }
+
+    /**
+     * @param article Article to create the hash for
+     * @return String with the SHA-256 of all fields except the content hash in hex
+     */
+    static String contentHash(Article article) {
+        // The post date is hashed as the ISO date, so the hash does not depend on the time zone of the crawler
+        String content = String.valueOf(article.getTitle()) + SEPARATOR
+                + article.getAuthor() + SEPARATOR
+                + article.getIssue() + SEPARATOR
+                + article.getLink() + SEPARATOR
+                + article.getDescription() + SEPARATOR
+                + article.getPostDate();
+        return hex(digest("SHA-256", content));
+    }
+
+    private static byte[] digest(String algorithm, String value) {
+        try {
+            return MessageDigest.getInstance(algorithm).digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JVM supports " + algorithm, e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,119 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * <p>Settings and mapping of the articles indexes, read from json files so deployments can tune them without changing
+ * code. The defaults are on the classpath in the directory elasticsearch, a directory with replacements can be
+ * provided using the system property <em>articles.index.config</em>. Files missing in that directory are read from
+ * the classpath.</p>
+ * <ul>
+ * <li><em>articles-settings.json</em> contains the settings of a new index, like shards, replicas, refresh interval
+ * and codec.</li>
+ * <li><em>articles-bulk-settings.json</em> overrides settings while bulk loading a new index. After loading, the
+ * values of these settings in articles-settings.json are restored, so every setting in this file must be present
+ * in articles-settings.json as well.</li>
+ * <li><em>articles-mapping.json</em> contains the mapping of the type article.</li>
+ * </ul>
+ */
+public class ArticleIndexConfig {
+    static final String CONFIG_DIRECTORY_PROPERTY = "articles.index.config";
+    private static final String CLASSPATH_DIRECTORY = "/elasticsearch/";
+    private static final String SETTINGS_FILE = "articles-settings.json";
+    private static final String BULK_SETTINGS_FILE = "articles-bulk-settings.json";
+    private static final String MAPPING_FILE = "articles-mapping.json";
+
+    private final Settings indexSettings;
+    private final Settings bulkLoadSettings;
+    private final String mapping;
+
+    private ArticleIndexConfig(Settings indexSettings, Settings bulkLoadSettings, String mapping) {
+        this.indexSettings = indexSettings;
+        this.bulkLoadSettings = bulkLoadSettings;
+        this.mapping = mapping;
+    }
+
+    /**
+     * Reads the configuration from the directory in the system property articles.index.config, or from the classpath
+     * when the property is not set.
+     *
+     * @return ArticleIndexConfig with the settings and mapping
+     */
+    public static ArticleIndexConfig load() {
+        String directory = System.getProperty(CONFIG_DIRECTORY_PROPERTY);
+        return directory == null ? fromDirectory(null) : fromDirectory(Paths.get(directory));
+    }
+
+    /**
+     * Reads the configuration from the provided directory, files that are not in the directory are read from the
+     * classpath.
+     *
+     * @param directory Directory containing the json files, null to only use the classpath
+     * @return ArticleIndexConfig with the settings and mapping
+     */
+    public static ArticleIndexConfig fromDirectory(Path directory) {
+        return new ArticleIndexConfig(
+                Settings.builder().loadFromSource(read(directory, SETTINGS_FILE), XContentType.JSON).build(),
+                Settings.builder().loadFromSource(read(directory, BULK_SETTINGS_FILE), XContentType.JSON).build(),
+                read(directory, MAPPING_FILE));
+    }
+
+    /**
+     * @return Settings used when creating an index
+     */
+    public Settings getIndexSettings() {
+        return indexSettings;
+    }
+
+    /**
+     * @return Settings used when creating an index for bulk loading, on top of the index settings
+     */
+    public Settings getBulkLoadSettings() {
+        return bulkLoadSettings;
+    }
+
+    /**
+     * @return Settings restoring the bulk load settings to the values of the index settings
+     */
+    public Settings getSearchSettings() {
+        return indexSettings.filter(bulkLoadSettings.keySet()::contains);
+    }
+
+    /**
+     * @return String with the json mapping of the type article
+     */
+    public String getMapping() {
+        return mapping;
+    }
+
+    private static String read(Path directory, String fileName) {
+        try {
+            if (directory != null && Files.exists(directory.resolve(fileName))) {
+                return new String(Files.readAllBytes(directory.resolve(fileName)), StandardCharsets.UTF_8);
+            }
+            try (InputStream inputStream = ArticleIndexConfig.class.getResourceAsStream(CLASSPATH_DIRECTORY + fileName)) {
+                if (inputStream == null) {
+                    throw new ElasticConfigException("Could not find " + fileName + " on the classpath");
+                }
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+                return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new ElasticConfigException("Could not read the index configuration " + fileName, e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package eu.luminis.elastic;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.search.SearchHit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts articles from and to the json stored in elasticsearch. The reader and writer are created once and are
+ * thread safe. Hits are read directly from the source bytes, without creating an intermediate String.
+ */
+class ArticleJson {
+    private static final Logger logger = LogManager.getLogger(ArticleJson.class);
+
+    private final ObjectReader articleReader;
+    private final ObjectWriter articleWriter;
+
+    ArticleJson() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        objectMapper.registerModule(new JavaTimeModule());
+        this.articleReader = objectMapper.readerFor(Article.class);
+        this.articleWriter = objectMapper.writerFor(Article.class);
+    }
+
+    /**
+     * Reads the article from the source of the hit.
+     *
+     * @param hit SearchHit containing the source of an article
+     * @return Article or null if the hit does not contain a source
+     * @throws IOException Thrown when the source is not a valid article
+     */
+    Article read(SearchHit hit) throws IOException {
+        return read(hit.getSourceRef());
+    }
+
+    /**
+     * Reads the article from the source of the hit, errors are logged and result in null.
+     *
+     * @param hit SearchHit containing the source of an article
+     * @return Article or null if the source could not be read
+     */
+    Article readHit(SearchHit hit) {
+        try {
+            return read(hit);
+        } catch (IOException e) {
+            logger.error("Error parsing article", e);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the articles from all provided hits, see {@link #readHit(SearchHit)}.
+     *
+     * @param hits Array of hits containing the source of articles
+     * @return List of Articles in the order of the hits
+     */
+    List<Article> readHits(SearchHit[] hits) {
+        List<Article> articles = new ArrayList<>(hits.length);
+        for (SearchHit hit : hits) {
+            articles.add(readHit(hit));
+        }
+        return articles;
+    }
+
+    Article read(BytesReference source) throws IOException {
+        if (source == null) {
+            return null;
+        }
+        BytesRef bytesRef = source.toBytesRef();
+        return articleReader.readValue(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+    }
+
+    Article read(byte[] source) throws IOException {
+        return articleReader.readValue(source);
+    }
+
+    byte[] write(Article article) throws JsonProcessingException {
+        return articleWriter.writeValueAsBytes(article);
+    }
+
+    ObjectWriter writer() {
+        return articleWriter;
+    }
+}
@@ -0,0 +1,86 @@
+package eu.luminis.elastic;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>Extracts the articles from the html of an overview page. The selectors are compiled into {@link Evaluator}s and
+ * the date formatter is created once, parsing a page only walks the document. The parser has no state and can be
+ * shared by multiple threads.</p>
+ */
+public class ArticleParser {
+    private static final Locale NL = Locale.forLanguageTag("nl-NL");
+    private static final DateTimeFormatter POST_DATE_FORMAT = DateTimeFormatter.ofPattern("d MMMM yyyy", NL);
+
+    private static final Evaluator ARTICLE_ITEMS = QueryParser.parse("li.databasejava");
+    private static final Evaluator TITLE = QueryParser.parse("article h3");
+    private static final Evaluator HEADER_LINK = QueryParser.parse("header a");
+    private static final Evaluator META = QueryParser.parse("div.meta");
+    private static final Evaluator SPAN = QueryParser.parse("span");
+    private static final Evaluator LINK = QueryParser.parse("a");
+    private static final Evaluator TIME = QueryParser.parse("time");
+    private static final Evaluator DESCRIPTION = QueryParser.parse("[itemprop=description]");
+
+    /**
+     * Reads the html from the stream and extracts the articles, the html is not copied into a String first.
+     *
+     * @param inputStream Stream with the html of the page, not closed by this method
+     * @param charsetName Charset of the html, null to use the charset in the html or UTF-8
+     * @param baseUri     Url of the page, used to resolve relative links
+     * @return List containing the found articles
+     * @throws IOException Thrown when the stream could not be read
+     */
+    public List<Article> parse(InputStream inputStream, String charsetName, String baseUri) throws IOException {
+        return parse(Jsoup.parse(inputStream, charsetName, baseUri));
+    }
+
+    /**
+     * Extracts the articles from the provided html document of an overview page.
+     *
+     * @param document html document of the page
+     * @return List containing the found articles
+     */
+    public List<Article> parse(Document document) {
+        Elements items = Collector.collect(ARTICLE_ITEMS, document);
+        List<Article> articles = new ArrayList<>(items.size());
+        for (Element item : items) {
+            articles.add(parseArticle(item));
+        }
+        return articles;
+    }
+
+    private static Article parseArticle(Element item) {
+        Element meta = first(META, item);
+        Elements spans = Collector.collect(SPAN, meta);
+        String issue = "unknown";
+        if (spans.size() > 1) {
+            issue = Collector.collect(LINK, spans.get(1)).text();
+        }
+
+        Article article = new Article()
+                .setTitle(first(TITLE, item).text())
+                .setAuthor(Collector.collect(LINK, spans.get(0)).text())
+                .setIssue(issue)
+                .setPostDate(LocalDate.parse(first(TIME, meta).text(), POST_DATE_FORMAT))
+                .setLink(first(HEADER_LINK, item).attr("href"))
+                .setDescription(first(DESCRIPTION, item).text());
+        return article.setContentHash(ArticleFingerprints.contentHash(article));
+    }
+
+    private static Element first(Evaluator evaluator, Element root) {
+        return Collector.collect(evaluator, root).first();
+    }
+}
@@ -0,0 +1,69 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Number of articles posted in a month or year, optionally broken down by author or issue.
+ */
+public class ArticlePeriod {
+    private final LocalDate start;
+    private final long articleCount;
+    private final Map<String, Map<String, Long>> breakdowns;
+
+    ArticlePeriod(LocalDate start, long articleCount, Map<String, Map<String, Long>> breakdowns) {
+        this.start = start;
+        this.articleCount = articleCount;
+        this.breakdowns = breakdowns;
+    }
+
+    /**
+     * @return LocalDate with the first day of the period
+     */
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public long getArticleCount() {
+        return articleCount;
+    }
+
+    /**
+     * @param field Field of the breakdown, like {@link ArticleCriteria#AUTHOR}
+     * @return Map with the value as a key and the number of articles in this period as a value, empty when the
+     * breakdown was not requested
+     */
+    public Map<String, Long> getBreakdown(String field) {
+        return breakdowns.getOrDefault(field, Collections.emptyMap());
+    }
+
+    @Override
+    public String toString() {
+        return "ArticlePeriod{" +
+                "start=" + start +
+                ", articleCount=" + articleCount +
+                ", breakdowns=" + breakdowns +
+                '}';
+    }
+
+    /**
+     * Length of the periods.
+     */
+    public enum Interval {
+        MONTH(DateHistogramInterval.MONTH),
+        YEAR(DateHistogramInterval.YEAR);
+
+        private final DateHistogramInterval histogramInterval;
+
+        Interval(DateHistogramInterval histogramInterval) {
+            this.histogramInterval = histogramInterval;
+        }
+
+        DateHistogramInterval getHistogramInterval() {
+            return histogramInterval;
+        }
+    }
+}
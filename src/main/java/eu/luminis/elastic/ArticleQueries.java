@@ -0,0 +1,112 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.dateHistogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+
+/**
+ * Queries and response handling shared by the blocking and the asynchronous repository.
+ */
+final class ArticleQueries {
+    static final String INDEX_BASE = "articles";
+    private static final String PERIODS = "periods";
+    private static final int BREAKDOWN_SIZE = 100;
+
+    private ArticleQueries() {
+    }
+
+    /**
+     * Searches the title and description fields, or matches all articles when no search string is provided.
+     */
+    static QueryBuilder searchQuery(String searchString) {
+        return new ArticleCriteria().withText(searchString).toQuery();
+    }
+
+    /**
+     * Filters on the issue without scoring, for listing all articles of an issue. Unlike the optional filter of
+     * {@link #issueQuery(String, String)} an empty issue is not left out, it matches no articles.
+     */
+    static QueryBuilder allForIssueQuery(String issue) {
+        return boolQuery().filter(termsQuery(ArticleCriteria.ISSUE, issue));
+    }
+
+    /**
+     * Filters on the author without scoring, for listing all articles of an author. Unlike the optional filter of
+     * {@link #authorQuery(String, String)} an empty author is not left out, it matches no articles.
+     */
+    static QueryBuilder allForAuthorQuery(String author) {
+        return boolQuery().filter(termsQuery(ArticleCriteria.AUTHOR, author));
+    }
+
+    /**
+     * Searches the title and description fields and filters on the issue. An empty issue or search string leaves out
+     * that part of the query.
+     */
+    static QueryBuilder issueQuery(String issue, String searchString) {
+        return new ArticleCriteria().withIssues(issue).withText(searchString).toQuery();
+    }
+
+    /**
+     * Searches the title and description fields and filters on the author. An empty author or search string leaves
+     * out that part of the query.
+     */
+    static QueryBuilder authorQuery(String author, String searchString) {
+        return new ArticleCriteria().withAuthors(author).withText(searchString).toQuery();
+    }
+
+    /**
+     * Creates a date histogram on the post date with a terms aggregation per breakdown field in every period.
+     */
+    static DateHistogramAggregationBuilder periodHistogram(ArticlePeriod.Interval interval, long minDocCount,
+                                                           String... breakdownFields) {
+        DateHistogramAggregationBuilder histogram = dateHistogram(PERIODS)
+                .field("postDate")
+                .dateHistogramInterval(interval.getHistogramInterval())
+                .format("yyyy-MM-dd")
+                .minDocCount(minDocCount);
+        for (String field : breakdownFields) {
+            histogram.subAggregation(terms(field).field(field).size(BREAKDOWN_SIZE));
+        }
+        return histogram;
+    }
+
+    /**
+     * Converts the buckets of the histogram created by {@link #periodHistogram} into periods, oldest first.
+     */
+    static List<ArticlePeriod> articlePeriods(SearchResponse response, String... breakdownFields) {
+        Histogram histogram = response.getAggregations().get(PERIODS);
+        List<ArticlePeriod> periods = new ArrayList<>();
+        for (Histogram.Bucket bucket : histogram.getBuckets()) {
+            Map<String, Map<String, Long>> breakdowns = new HashMap<>();
+            for (String field : breakdownFields) {
+                breakdowns.put(field, bucketCounts((Terms) bucket.getAggregations().get(field)));
+            }
+            periods.add(new ArticlePeriod(LocalDate.parse(bucket.getKeyAsString()), bucket.getDocCount(), breakdowns));
+        }
+        return periods;
+    }
+
+    /**
+     * Converts the buckets of a terms aggregation into a map with the key and the number of documents, in the order
+     * of the buckets.
+     */
+    static Map<String, Long> bucketCounts(Terms terms) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        terms.getBuckets().forEach(bucket -> counts.put(bucket.getKeyAsString(), bucket.getDocCount()));
+        return counts;
+    }
+}
@@ -0,0 +1,227 @@
+package eu.luminis.elastic;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static eu.luminis.elastic.ArticleQueries.INDEX_BASE;
+import static eu.luminis.elastic.ArticleQueries.allForAuthorQuery;
+import static eu.luminis.elastic.ArticleQueries.allForIssueQuery;
+import static eu.luminis.elastic.ArticleQueries.authorQuery;
+import static eu.luminis.elastic.ArticleQueries.bucketCounts;
+import static eu.luminis.elastic.ArticleQueries.issueQuery;
+import static eu.luminis.elastic.ArticleQueries.searchQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+
+/**
+ * <p>Collects multiple repository queries and executes them in one multi search request, so a screen that needs the
+ * authors, the issues and a list of articles costs one round trip to the cluster.</p>
+ * <p>The authors and issues aggregations are combined into a single search. Article queries are registered with a
+ * name that is used to obtain the articles from the {@link Result}.</p>
+ * <pre>
+ * ArticleQueryBatch.Result result = repository.createQueryBatch()
+ *         .withAuthors()
+ *         .withIssues()
+ *         .searchArticlesBy("search", "java")
+ *         .execute();
+ * </pre>
+ */
+public class ArticleQueryBatch {
+    private static final Logger logger = LogManager.getLogger(ArticleQueryBatch.class);
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    private final Client client;
+    private final ArticleJson articleJson;
+    private final Map<String, QueryBuilder> articleQueries = new LinkedHashMap<>();
+    private boolean withAuthors;
+    private boolean withIssues;
+
+    ArticleQueryBatch(Client client, ArticleJson articleJson) {
+        this.client = client;
+        this.articleJson = articleJson;
+    }
+
+    /**
+     * Adds the authors with the number of articles they wrote, see {@link ArticleRepository#findAuthors()}.
+     *
+     * @return this batch
+     */
+    public ArticleQueryBatch withAuthors() {
+        this.withAuthors = true;
+        return this;
+    }
+
+    /**
+     * Adds the issues with the number of articles they contain, see {@link ArticleRepository#findIssues()}.
+     *
+     * @return this batch
+     */
+    public ArticleQueryBatch withIssues() {
+        this.withIssues = true;
+        return this;
+    }
+
+    /**
+     * Adds a search in the title and description fields, see {@link ArticleRepository#searchArticlesBy(String)}.
+     *
+     * @param name         Name used to obtain the articles from the result
+     * @param searchString String to search for, if empty we return everything
+     * @return this batch
+     */
+    public ArticleQueryBatch searchArticlesBy(String name, String searchString) {
+        return addArticleQuery(name, searchQuery(searchString));
+    }
+
+    /**
+     * Adds the articles of an issue, see {@link ArticleRepository#findAllArticlesForIssue(String)}.
+     *
+     * @param name  Name used to obtain the articles from the result
+     * @param issue String containing the issue to find articles for
+     * @return this batch
+     */
+    public ArticleQueryBatch findAllArticlesForIssue(String name, String issue) {
+        return addArticleQuery(name, allForIssueQuery(issue));
+    }
+
+    /**
+     * Adds the articles of an author, see {@link ArticleRepository#findAllArticlesForAuthor(String)}.
+     *
+     * @param name   Name used to obtain the articles from the result
+     * @param author String containing the author to find articles for
+     * @return this batch
+     */
+    public ArticleQueryBatch findAllArticlesForAuthor(String name, String author) {
+        return addArticleQuery(name, allForAuthorQuery(author));
+    }
+
+    /**
+     * Adds a search filtered by issue, see {@link ArticleRepository#searchAndFilterIssueArticlesBy(String, String)}.
+     *
+     * @param name         Name used to obtain the articles from the result
+     * @param issue        String containing the issue to filter by
+     * @param searchString String containing the string to search for
+     * @return this batch
+     */
+    public ArticleQueryBatch searchAndFilterIssueArticlesBy(String name, String issue, String searchString) {
+        return addArticleQuery(name, issueQuery(issue, searchString));
+    }
+
+    /**
+     * Adds a search filtered by author, see {@link ArticleRepository#searchAndFilterAuthorArticlesBy(String, String)}.
+     *
+     * @param name         Name used to obtain the articles from the result
+     * @param author       String containing the author to filter by
+     * @param searchString String containing the string to search for
+     * @return this batch
+     */
+    public ArticleQueryBatch searchAndFilterAuthorArticlesBy(String name, String author, String searchString) {
+        return addArticleQuery(name, authorQuery(author, searchString));
+    }
+
+    /**
+     * Sends all collected queries in one multi search request.
+     *
+     * @return Result containing the outcome of all queries
+     */
+    public Result execute() {
+        MultiSearchRequestBuilder multiSearch = client.prepareMultiSearch();
+        if (withAuthors || withIssues) {
+            SearchRequestBuilder facets = client.prepareSearch(INDEX_BASE).setSize(0);
+            if (withAuthors) {
+                facets.addAggregation(terms("authors").field("author"));
+            }
+            if (withIssues) {
+                facets.addAggregation(terms("issues").field("issue"));
+            }
+            multiSearch.add(facets);
+        }
+        articleQueries.values().forEach(queryBuilder ->
+                multiSearch.add(client.prepareSearch(INDEX_BASE).setQuery(queryBuilder).setSize(DEFAULT_PAGE_SIZE)));
+
+        Result result = new Result();
+        if (multiSearch.request().requests().isEmpty()) {
+            return result;
+        }
+
+        try {
+            MultiSearchResponse.Item[] responses = multiSearch.execute().get().getResponses();
+            int position = 0;
+            if (withAuthors || withIssues) {
+                SearchResponse facets = responseOf(responses[position++]);
+                if (withAuthors) {
+                    result.authors = bucketCounts((Terms) facets.getAggregations().get("authors"));
+                }
+                if (withIssues) {
+                    result.issues = bucketCounts((Terms) facets.getAggregations().get("issues"));
+                }
+            }
+            for (String name : articleQueries.keySet()) {
+                result.articles.put(name, articleJson.readHits(responseOf(responses[position++]).getHits().hits()));
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error while executing the multi search", e);
+            throw new ElasticExecutionException("Error when trying to execute the query batch", e);
+        }
+        return result;
+    }
+
+    private ArticleQueryBatch addArticleQuery(String name, QueryBuilder queryBuilder) {
+        if (articleQueries.containsKey(name)) {
+            throw new IllegalArgumentException("Batch already contains a query with name " + name);
+        }
+        articleQueries.put(name, queryBuilder);
+        return this;
+    }
+
+    private SearchResponse responseOf(MultiSearchResponse.Item item) {
+        if (item.isFailure()) {
+            logger.error("Error in query of the batch", item.getFailure());
+            throw new ElasticExecutionException("Error in query of the batch: " + item.getFailureMessage());
+        }
+        return item.getResponse();
+    }
+
+    /**
+     * Outcome of all queries in the batch.
+     */
+    public static class Result {
+        private Map<String, Long> authors;
+        private Map<String, Long> issues;
+        private final Map<String, List<Article>> articles = new HashMap<>();
+
+        /**
+         * @return Map with the author as a key and the number of articles, null if not requested
+         */
+        public Map<String, Long> getAuthors() {
+            return authors;
+        }
+
+        /**
+         * @return Map with the issue as a key and the number of articles, null if not requested
+         */
+        public Map<String, Long> getIssues() {
+            return issues;
+        }
+
+        /**
+         * @param name Name the query was registered with
+         * @return List of Articles found by the query, empty if no query with the name was added
+         */
+        public List<Article> getArticles(String name) {
+            return articles.getOrDefault(name, new ArrayList<>());
+        }
+    }
+}
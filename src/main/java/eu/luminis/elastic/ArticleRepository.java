@@ -1,53 +1,172 @@
 package eu.luminis.elastic;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.ElasticsearchTimeoutException;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthRequest;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesResponse;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesResponse;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.admin.indices.get.GetIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsResponse;
+import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
-import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.suggest.SuggestBuilder;
+import org.elasticsearch.search.suggest.completion.CompletionSuggestion;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
-import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static eu.luminis.elastic.ArticleQueries.INDEX_BASE;
+import static eu.luminis.elastic.ArticleQueries.allForAuthorQuery;
+import static eu.luminis.elastic.ArticleQueries.allForIssueQuery;
+import static eu.luminis.elastic.ArticleQueries.articlePeriods;
+import static eu.luminis.elastic.ArticleQueries.authorQuery;
+import static eu.luminis.elastic.ArticleQueries.bucketCounts;
+import static eu.luminis.elastic.ArticleQueries.issueQuery;
+import static eu.luminis.elastic.ArticleQueries.periodHistogram;
+import static eu.luminis.elastic.ArticleQueries.searchQuery;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
-import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
-import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.search.suggest.SuggestBuilders.completionSuggestion;
 
 /**
  * Class used to interact with elastic API like cluster, index, etc.
  */
-public class ArticleRepository {
+public class ArticleRepository implements ArticleSearchEngine {
     private static final Logger logger = LogManager.getLogger(ArticleRepository.class);
-    private static final String INDEX_BASE = "articles";
+    private static final Logger slowQueryLogger = LogManager.getLogger("eu.luminis.elastic.slowlog");
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int EXPORT_PAGE_SIZE = 500;
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+    private static final DateTimeFormatter INDEX_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+    private static final String INDEX_TEMPLATE = "articles";
 
     private final Client client;
-    private final ObjectMapper objectMapper;
+    private final ArticleJson articleJson;
+    private final RepositoryMetrics metrics;
+    private final ArticleRollup rollup;
+    private final AuthorSuggestions authorSuggestions;
+    private final ArticleIndexConfig indexConfig;
+    private TimeValue slowQueryThreshold;
+    private SearchPreference searchPreference = SearchPreference.NONE;
+    private TimeValue searchTimeout;
+    private int searchRetries;
 
     public ArticleRepository(Client client) {
+        this(client, RepositoryMetrics.NOOP);
+    }
+
+    /**
+     * @param client  Client used to send the requests
+     * @param metrics Metrics receiving the latency, hits and errors of the searches and indexing requests
+     */
+    public ArticleRepository(Client client, RepositoryMetrics metrics) {
+        this(client, metrics, ArticleIndexConfig.load());
+    }
+
+    /**
+     * @param client      Client used to send the requests
+     * @param metrics     Metrics receiving the latency, hits and errors of the searches and indexing requests
+     * @param indexConfig Settings and mapping used when creating the articles indexes
+     */
+    public ArticleRepository(Client client, RepositoryMetrics metrics, ArticleIndexConfig indexConfig) {
         this.client = client;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        this.articleJson = new ArticleJson();
+        this.metrics = metrics;
+        this.rollup = new ArticleRollup(client);
+        this.authorSuggestions = new AuthorSuggestions(client);
+        this.indexConfig = indexConfig;
+    }
+
+    /**
+     * Searches taking longer than the threshold are logged with the query to the logger
+     * <em>eu.luminis.elastic.slowlog</em>. The slow query log is disabled by default.
+     *
+     * @param slowQueryThreshold Minimal client side duration of a search to be logged, null to disable
+     * @return this repository
+     */
+    public ArticleRepository setSlowQueryThreshold(TimeValue slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the strategy providing the preference of every search, like {@link SearchPreference#sessionSticky(String)}
+     * or {@link LatencyAwareSearchPreference}. By default the cluster picks the shard copies.
+     *
+     * @param searchPreference Strategy deciding which shard copies execute the searches
+     * @return this repository
+     */
+    public ArticleRepository setSearchPreference(SearchPreference searchPreference) {
+        this.searchPreference = searchPreference;
+        return this;
+    }
+
+    /**
+     * Searches that do not respond within the timeout are abandoned and retried, using the retry preference of the
+     * search preference strategy. When all attempts time out an {@link ElasticExecutionException} is thrown. By
+     * default searches wait without a timeout. An abandoned search is not cancelled, it keeps running on the cluster.
+     * Every retry therefore adds load, often to a node that is already slow, keep the number of retries low.
+     *
+     * @param searchTimeout Maximum time to wait for a search response, null to wait without a timeout
+     * @param retries       Number of retries after the first attempt timed out
+     * @return this repository
+     */
+    public ArticleRepository setSearchTimeout(TimeValue searchTimeout, int retries) {
+        this.searchTimeout = searchTimeout;
+        this.searchRetries = retries;
+        return this;
     }
 
     /**
@@ -73,233 +192,882 @@ public class ArticleRepository {
         this.client.admin().indices().prepareDelete(INDEX_BASE + "-*").get();
     }
 
+    /**
+     * Stores the index template <em>articles</em> with the configured settings and mapping. The template is applied
+     * to every new <em>articles-*</em> index, also to indexes created without this repository.
+     */
+    public void putIndexTemplate() {
+        try {
+            PutIndexTemplateResponse response = client.admin().indices().preparePutTemplate(INDEX_TEMPLATE)
+                    .setTemplate(INDEX_BASE + "-*")
+                    .setSettings(indexConfig.getIndexSettings())
+                    .addMapping("article", indexConfig.getMapping(), XContentType.JSON)
+                    .execute().get();
+            if (!response.isAcknowledged()) {
+                throw new ElasticExecutionException("Put index template was not acknowledged");
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error while storing the index template", e);
+            throw new ElasticExecutionException("Error when trying to store the index template", e);
+        }
+    }
+
     /**
      * Creates a new index with a name <em>articles-[timestamp]</em> and creates an Alias with the name articles. The
-     * index is created with a shard and no replicas.
+     * settings and mapping of the index come from the index template, see {@link ArticleIndexConfig}.
      */
     public void createIndex() {
-        String indexName = INDEX_BASE + "-" +
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-
-        Settings settings = Settings.builder()
-                .put("number_of_shards", 1)
-                .put("number_of_replicas", 0)
-                .build();
-        CreateIndexRequest request = new CreateIndexRequest(indexName, settings);
-
-        String mapping = "{\n" +
-                "    \"article\": {\n" +
-                "      \"properties\": {\n" +
-                "        \"title\": {\n" +
-                "          \"type\": \"text\"\n" +
-                "        },\n" +
-                "        \"author\": {\n" +
-                "          \"type\": \"keyword\"\n" +
-                "        },\n" +
-                "        \"issue\": {\n" +
-                "          \"type\": \"keyword\"\n" +
-                "        },\n" +
-                "        \"link\": {\n" +
-                "          \"type\": \"keyword\"\n" +
-                "        },\n" +
-                "        \"description\": {\n" +
-                "          \"type\": \"text\"\n" +
-                "        },\n" +
-                "        \"postDate\": {\n" +
-                "          \"type\": \"date\",\n" +
-                "          \"format\": \"yyyy-MM-dd\"\n" +
-                "        }\n" +
-                "      }\n" +
-                "    }\n" +
-                "  }";
-
-        request.mapping("article", mapping, XContentType.JSON);
+        putIndexTemplate();
+        CreateIndexRequest request = new CreateIndexRequest(newIndexName());
         request.alias(new Alias(INDEX_BASE));
 
+        executeCreateIndex(request);
+    }
+
+    /**
+     * Rebuilds the articles index without downtime for readers. A new index is created and loaded by the provided
+     * loader while the alias articles keeps pointing to the current index. After loading, the new index is prepared
+     * for searching and the alias is moved in one atomic request. Finally the old indexes are removed and the rollup
+     * is refreshed, a failing refresh is logged and does not fail the rebuild.
+     * The new index only replaces the current index when it is complete. When the loader throws an exception, an
+     * article could not be indexed or the loader reported source failures to the bulk indexer, the new index is
+     * removed, the alias keeps pointing to the current index and an {@link ElasticExecutionException} is thrown.
+     *
+     * @param loader Consumer that adds all articles to the provided bulk indexer, the indexer is closed afterwards
+     * @return String with the name of the new index
+     */
+    public String rebuildIndex(Consumer<ArticleBulkIndexer> loader) {
+        String indexName = createIndexForBulkLoad();
         try {
-            CreateIndexResponse createIndexResponse = this.client.admin().indices().create(request).get();
-            if (!createIndexResponse.isAcknowledged()) {
-                throw new ElasticExecutionException("Create java_magazine index was not acknowledged");
+            ArticleBulkIndexer bulkIndexer = createBulkIndexer(indexName, new BulkIndexConfig(), (article, reason) ->
+                    logger.warn("Could not index article {}: {}", article.getLink(), reason));
+            try (ArticleBulkIndexer closingIndexer = bulkIndexer) {
+                loader.accept(closingIndexer);
+            }
+            if (bulkIndexer.getFailedCount() > 0 || bulkIndexer.getSourceFailureCount() > 0) {
+                throw new ElasticExecutionException("Rebuild of " + indexName + " is incomplete, "
+                        + bulkIndexer.getFailedCount() + " articles could not be indexed and "
+                        + bulkIndexer.getSourceFailureCount() + " sources could not be read");
+            }
+            finishBulkLoad(indexName);
+            moveAlias(indexName);
+        } catch (RuntimeException e) {
+            deleteIndexAfterFailure(indexName, e);
+            throw e;
+        }
+        deleteIndexesExcept(indexName);
+        refreshRollupAfterIndexing();
+        return indexName;
+    }
+
+    /**
+     * Writes all articles to the provided file, see {@link #importSnapshot(Path)} to load them again. The articles are
+     * read using a scroll per slice, the slices run in parallel and each keeps only one page in memory. The sources are
+     * written as stored, without parsing them into articles.
+     *
+     * @param file   Path of the file to create, an existing file is replaced
+     * @param slices Number of parallel scrolls, at most the number of shards is useful
+     * @return number of exported articles
+     */
+    public long exportSnapshot(Path file, int slices) {
+        ExecutorService executor = Executors.newFixedThreadPool(slices);
+        try (ArticleSnapshotFile.Writer writer = new ArticleSnapshotFile.Writer(file)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int slice = 0; slice < slices; slice++) {
+                int sliceId = slice;
+                futures.add(executor.submit(() -> {
+                    exportSlice(writer, sliceId, slices);
+                    return null;
+                }));
             }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            writer.finish();
+            logger.info("Exported {} articles to {}", writer.getRecordCount(), file);
+            return writer.getRecordCount();
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            logger.error("Error while exporting the articles", e);
+            throw new ElasticExecutionException("Error when trying to export the articles to " + file, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads the articles from a file written by {@link #exportSnapshot(Path, int)} into a new index using
+     * {@link #rebuildIndex(Consumer)}. The file is memory mapped and read sequentially, the bulk indexer limits the
+     * number of articles in flight. The alias is only moved when all articles of the complete file were indexed,
+     * otherwise the new index is removed and an {@link ElasticExecutionException} is thrown.
+     *
+     * @param file Path of the snapshot file
+     * @return String with the name of the new index
+     */
+    public String importSnapshot(Path file) {
+        try (ArticleSnapshotFile.Reader reader = new ArticleSnapshotFile.Reader(file, articleJson)) {
+            return rebuildIndex(bulkIndexer -> reader.forEachRemaining(bulkIndexer::add));
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error while importing the articles", e);
+            throw new ElasticExecutionException("Error when trying to import the articles from " + file, e);
+        }
+    }
+
+    /**
+     * Creates a new index with a name <em>articles-[timestamp]</em> without an alias. The index is tuned for bulk
+     * loading using the bulk load settings, by default refresh is disabled, there are no replicas and the translog is
+     * synced asynchronously. Call {@link #finishBulkLoad(String)} after loading the index.
+     *
+     * @return String with the name of the new index
+     */
+    public String createIndexForBulkLoad() {
+        putIndexTemplate();
+        String indexName = newIndexName();
+        executeCreateIndex(new CreateIndexRequest(indexName, indexConfig.getBulkLoadSettings()));
+        return indexName;
+    }
+
+    /**
+     * Restores the settings changed for bulk loading an index created by {@link #createIndexForBulkLoad()} to the
+     * configured index settings, refreshes the index and merges it into a single segment.
+     *
+     * @param indexName String with the name of the loaded index
+     */
+    public void finishBulkLoad(String indexName) {
+        try {
+            UpdateSettingsResponse updateSettingsResponse = client.admin().indices()
+                    .updateSettings(new UpdateSettingsRequest(indexConfig.getSearchSettings(), indexName)).get();
+            if (!updateSettingsResponse.isAcknowledged()) {
+                throw new ElasticExecutionException("Update settings of index " + indexName + " was not acknowledged");
+            }
+            client.admin().indices().refresh(new RefreshRequest(indexName)).get();
+            client.admin().indices().forceMerge(new ForceMergeRequest(indexName).maxNumSegments(1)).get();
         } catch (InterruptedException | ExecutionException e) {
-            logger.error("Error while creating an index", e);
-            throw new ElasticExecutionException("Error when trying to create an index");
+            logger.error("Error while finishing the bulk load", e);
+            throw new ElasticExecutionException("Error when trying to finish the bulk load of " + indexName);
         }
     }
 
     /**
-     * Index the provided article in the index the alias articles is pointing to.
+     * Moves the alias articles to the provided index in one atomic request and removes all other
+     * <em>articles-*</em> indexes.
+     *
+     * @param indexName String with the name of the index the alias must point to
+     */
+    public void switchAlias(String indexName) {
+        moveAlias(indexName);
+        deleteIndexesExcept(indexName);
+    }
+
+    private void moveAlias(String indexName) {
+        try {
+            IndicesAliasesRequest aliasesRequest = new IndicesAliasesRequest();
+            aliasesRequest.addAliasAction(AliasActions.add().index(indexName).alias(INDEX_BASE));
+
+            GetAliasesResponse aliasesResponse = client.admin().indices()
+                    .getAliases(new GetAliasesRequest(INDEX_BASE)).get();
+            aliasesResponse.getAliases().keysIt().forEachRemaining(oldIndex -> {
+                if (!oldIndex.equals(indexName)) {
+                    aliasesRequest.addAliasAction(AliasActions.remove().index(oldIndex).alias(INDEX_BASE));
+                }
+            });
+
+            IndicesAliasesResponse indicesAliasesResponse = client.admin().indices().aliases(aliasesRequest).get();
+            if (!indicesAliasesResponse.isAcknowledged()) {
+                throw new ElasticExecutionException("Switch of alias to " + indexName + " was not acknowledged");
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error while switching the alias", e);
+            throw new ElasticExecutionException("Error when trying to switch the alias to " + indexName, e);
+        }
+    }
+
+    private void deleteIndexesExcept(String indexName) {
+        try {
+            String[] oldIndexes = Arrays.stream(client.admin().indices()
+                    .getIndex(new GetIndexRequest().indices(INDEX_BASE + "-*")).get().getIndices())
+                    .filter(index -> !index.equals(indexName))
+                    .toArray(String[]::new);
+            if (oldIndexes.length > 0) {
+                client.admin().indices().delete(new DeleteIndexRequest(oldIndexes)).get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error while removing the old indexes", e);
+            throw new ElasticExecutionException("Error when trying to remove the indexes other than " + indexName, e);
+        }
+    }
+
+    /**
+     * Removes the index of a rebuild that did not complete, a failure to remove it is added to the original failure.
+     */
+    private void deleteIndexAfterFailure(String indexName, RuntimeException failure) {
+        logger.warn("Removing index {} after a failed rebuild", indexName);
+        try {
+            client.admin().indices().delete(new DeleteIndexRequest(indexName)).get();
+        } catch (InterruptedException | ExecutionException | RuntimeException e) {
+            logger.error("Could not remove index " + indexName, e);
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Index the provided article in the index the alias articles is pointing to. The id of the document is derived
+     * from the link of the article, indexing an article with the same link replaces the existing document.
      *
      * @param article Article object to index.
      */
+    @Override
     public void indexArticle(Article article) {
+        long start = System.nanoTime();
         try {
-            String articleAsString = objectMapper.writeValueAsString(article);
-            client.prepareIndex(INDEX_BASE, "article").setSource(articleAsString, XContentType.JSON).get();
+            client.prepareIndex(INDEX_BASE, "article", ArticleFingerprints.documentId(article))
+                    .setSource(articleJson.write(article), XContentType.JSON)
+                    .get();
+            metrics.recordRequest("indexArticle", -1, System.nanoTime() - start, 0);
         } catch (IOException e) {
+            metrics.recordError("indexArticle");
             throw new ElasticExecutionException("Error indexing document");
+        } catch (RuntimeException e) {
+            metrics.recordError("indexArticle");
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the content hashes of the stored articles with the provided links. Links of articles that are not in
+     * the index are not in the result, neither are articles stored without a content hash.
+     *
+     * @param links Collection with the links of the articles
+     * @return Map with the link as key and the stored content hash as value
+     */
+    public Map<String, String> findContentHashes(Collection<String> links) {
+        Map<String, String> contentHashes = new HashMap<>();
+        if (links.isEmpty()) {
+            return contentHashes;
+        }
+
+        MultiGetRequest request = new MultiGetRequest();
+        FetchSourceContext sourceContext = new FetchSourceContext(true, new String[]{"link", "contentHash"}, null);
+        links.forEach(link -> request.add(new MultiGetRequest.Item(INDEX_BASE, "article",
+                ArticleFingerprints.documentId(new Article().setLink(link))).fetchSourceContext(sourceContext)));
+
+        try {
+            for (MultiGetItemResponse item : client.multiGet(request).get().getResponses()) {
+                if (item.isFailed() || !item.getResponse().isExists()) {
+                    continue;
+                }
+                Article article = articleJson.read(item.getResponse().getSourceAsBytesRef());
+                if (article != null && article.getContentHash() != null) {
+                    contentHashes.put(article.getLink(), article.getContentHash());
+                }
+            }
+        } catch (InterruptedException | ExecutionException | IOException e) {
+            logger.error("Error while obtaining the content hashes", e);
+            throw new ElasticExecutionException("Error when trying to obtain the content hashes", e);
         }
+        return contentHashes;
+    }
+
+    /**
+     * Creates a bulk indexer with the default thresholds that writes to the index the alias articles is pointing to.
+     * Failed articles are logged.
+     *
+     * @return ArticleBulkIndexer that must be closed to flush the remaining articles
+     */
+    public ArticleBulkIndexer createBulkIndexer() {
+        return createBulkIndexer(new BulkIndexConfig(), (article, reason) ->
+                logger.warn("Could not index article {}: {}", article.getLink(), reason));
+    }
+
+    /**
+     * Creates a bulk indexer that writes to the index the alias articles is pointing to.
+     *
+     * @param config          Thresholds for flushing the bulk requests and the number of concurrent requests
+     * @param failureListener Listener that receives all articles that could not be indexed
+     * @return ArticleBulkIndexer that must be closed to flush the remaining articles
+     */
+    public ArticleBulkIndexer createBulkIndexer(BulkIndexConfig config, BulkFailureListener failureListener) {
+        return createBulkIndexer(INDEX_BASE, config, failureListener);
+    }
+
+    /**
+     * Creates a bulk indexer that writes to the provided index, used to load a new index before it is exposed using
+     * the alias.
+     *
+     * @param indexName       String with the name of the index or alias to write to
+     * @param config          Thresholds for flushing the bulk requests and the number of concurrent requests
+     * @param failureListener Listener that receives all articles that could not be indexed
+     * @return ArticleBulkIndexer that must be closed to flush the remaining articles
+     */
+    public ArticleBulkIndexer createBulkIndexer(String indexName, BulkIndexConfig config,
+                                                BulkFailureListener failureListener) {
+        return new ArticleBulkIndexer(client, indexName, articleJson.writer(), config, failureListener);
     }
 
     /**
      * Accepts a search string and searches the title and description fields for occurrences. If no search string
-     * is provided we return all documents.
+     * is provided we return all documents. Only the first page of results is returned.
      *
      * @param searchString String to search for, if empty we return everything
      * @return List of Articles found by the query.
      */
+    @Override
     public List<Article> searchArticlesBy(String searchString) {
-        QueryBuilder queryBuilder;
-        if (searchString == null || searchString.isEmpty()) {
-            queryBuilder = matchAllQuery();
-        } else {
-            queryBuilder = multiMatchQuery(searchString, "description", "title");
+        return searchArticlesBy(searchString, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Returns one page of the articles matching the search string in the title or description fields.
+     *
+     * @param searchString String to search for, if empty we return everything
+     * @param from         Index of the first article to return
+     * @param size         Maximum number of articles to return
+     * @return List of Articles found by the query.
+     */
+    public List<Article> searchArticlesBy(String searchString, int from, int size) {
+        return executeSearch("searchArticlesBy", searchQuery(searchString), from, size, null);
+    }
+
+    /**
+     * Returns one page of the articles matching the search string, the articles only contain the requested fields.
+     * Use this for overviews that do not show the complete article.
+     *
+     * @param searchString String to search for, if empty we return everything
+     * @param from         Index of the first article to return
+     * @param size         Maximum number of articles to return
+     * @param fields       Names of the fields to obtain from the source, like title and postDate
+     * @return List of Articles found by the query containing only the requested fields.
+     */
+    public List<Article> searchArticlesBy(String searchString, int from, int size, String... fields) {
+        return executeSearch("searchArticlesBy", searchQuery(searchString), from, size, fields);
+    }
+
+    /**
+     * Returns one page of the articles matching all criteria, together with the total number of matching articles and
+     * the facets requested in the criteria. The facets count all matching articles, not only the returned page. When
+     * requested, the articles only contain the source fields of the criteria and come with highlighted fragments.
+     *
+     * @param criteria Criteria the articles must match
+     * @param from     Index of the first article to return
+     * @param size     Maximum number of articles to return
+     * @return ArticleSearchResult with the articles, facets and fragments
+     */
+    public ArticleSearchResult searchArticles(ArticleCriteria criteria, int from, int size) {
+        SearchRequestBuilder searchRequestBuilder = client.prepareSearch(INDEX_BASE)
+                .setQuery(criteria.toQuery())
+                .setFrom(from)
+                .setSize(size);
+        criteria.getFacets().forEach(field ->
+                searchRequestBuilder.addAggregation(terms(field).field(field).size(criteria.getFacetSize())));
+        HighlightBuilder highlight = criteria.toHighlight();
+        if (highlight != null) {
+            searchRequestBuilder.highlighter(highlight);
+        }
+        if (criteria.getSourceFields() != null) {
+            searchRequestBuilder.setFetchSource(criteria.getSourceFields(), null);
         }
-        SearchResponse searchResponse = client.prepareSearch(INDEX_BASE).setQuery(queryBuilder).get();
-        SearchHit[] hits = searchResponse.getHits().hits();
 
-        return Arrays.stream(hits)
-                .map(this::parseHitIntoArticle)
-                .collect(Collectors.toCollection(ArrayList::new));
+        return instrumented("searchArticles", searchRequestBuilder, response -> {
+            Map<String, Map<String, Long>> facets = new HashMap<>();
+            criteria.getFacets().forEach(field ->
+                    facets.put(field, bucketCounts((Terms) response.getAggregations().get(field))));
+            List<Map<String, List<String>>> fragments = Arrays.stream(response.getHits().hits())
+                    .map(ArticleRepository::highlightFragments)
+                    .collect(Collectors.toList());
+            return new ArticleSearchResult(articleJson.readHits(response.getHits().hits()),
+                    response.getHits().getTotalHits(), facets, fragments);
+        });
     }
 
     /**
-     * Returns all articles available from the provided issue.
+     * Streams all articles matching the search string in the title or description fields. The articles are obtained
+     * page by page using a scroll, close the stream when not consuming all articles to release the scroll.
+     *
+     * @param searchString String to search for, if empty we return everything
+     * @param pageSize     Number of articles obtained per request
+     * @return Stream of all Articles found by the query.
+     */
+    public Stream<Article> streamArticlesBy(String searchString, int pageSize) {
+        boolean scored = searchString != null && !searchString.isEmpty();
+        return executeScroll("streamArticlesBy", searchQuery(searchString), scored, pageSize);
+    }
+
+    /**
+     * Returns the articles available from the provided issue. Only the first page of results is returned.
      *
      * @param issue String containing the issue to find articles for
      * @return List of Articles from the specified issue.
      */
+    @Override
     public List<Article> findAllArticlesForIssue(String issue) {
-        SearchResponse searchResponse = client.prepareSearch(INDEX_BASE)
-                .setQuery(termsQuery("issue", issue))
-                .get();
-        SearchHit[] hits = searchResponse.getHits().hits();
-
-        return Arrays.stream(hits)
-                .map(this::parseHitIntoArticle)
-                .collect(Collectors.toCollection(ArrayList::new));
+        return findAllArticlesForIssue(issue, 0, DEFAULT_PAGE_SIZE);
     }
 
     /**
-     * Returns all articles available from the provided author.
+     * Returns one page of the articles available from the provided issue.
      *
-     * @param author String containing the issue to find articles for
+     * @param issue String containing the issue to find articles for
+     * @param from  Index of the first article to return
+     * @param size  Maximum number of articles to return
      * @return List of Articles from the specified issue.
      */
+    public List<Article> findAllArticlesForIssue(String issue, int from, int size) {
+        return executeSearch("findAllArticlesForIssue", allForIssueQuery(issue), from, size, null);
+    }
+
+    /**
+     * Returns one page of the articles available from the provided issue, the articles only contain the requested
+     * fields.
+     *
+     * @param issue  String containing the issue to find articles for
+     * @param from   Index of the first article to return
+     * @param size   Maximum number of articles to return
+     * @param fields Names of the fields to obtain from the source, like title and author
+     * @return List of Articles from the specified issue containing only the requested fields.
+     */
+    public List<Article> findAllArticlesForIssue(String issue, int from, int size, String... fields) {
+        return executeSearch("findAllArticlesForIssue", allForIssueQuery(issue), from, size, fields);
+    }
+
+    /**
+     * Streams all articles available from the provided issue using a scroll, close the stream when not consuming all
+     * articles.
+     *
+     * @param issue    String containing the issue to find articles for
+     * @param pageSize Number of articles obtained per request
+     * @return Stream of all Articles from the specified issue.
+     */
+    public Stream<Article> streamAllArticlesForIssue(String issue, int pageSize) {
+        return executeScroll("streamAllArticlesForIssue", allForIssueQuery(issue), false, pageSize);
+    }
+
+    /**
+     * Returns the articles available from the provided author. Only the first page of results is returned.
+     *
+     * @param author String containing the author to find articles for
+     * @return List of Articles from the specified author.
+     */
+    @Override
     public List<Article> findAllArticlesForAuthor(String author) {
-        SearchResponse searchResponse = client.prepareSearch(INDEX_BASE)
-                .setQuery(termsQuery("author", author))
-                .get();
-        SearchHit[] hits = searchResponse.getHits().hits();
+        return findAllArticlesForAuthor(author, 0, DEFAULT_PAGE_SIZE);
+    }
 
-        return Arrays.stream(hits)
-                .map(this::parseHitIntoArticle)
-                .collect(Collectors.toCollection(ArrayList::new));
+    /**
+     * Returns one page of the articles available from the provided author.
+     *
+     * @param author String containing the author to find articles for
+     * @param from   Index of the first article to return
+     * @param size   Maximum number of articles to return
+     * @return List of Articles from the specified author.
+     */
+    public List<Article> findAllArticlesForAuthor(String author, int from, int size) {
+        return executeSearch("findAllArticlesForAuthor", allForAuthorQuery(author), from, size, null);
+    }
+
+    /**
+     * Returns one page of the articles available from the provided author, the articles only contain the requested
+     * fields.
+     *
+     * @param author String containing the author to find articles for
+     * @param from   Index of the first article to return
+     * @param size   Maximum number of articles to return
+     * @param fields Names of the fields to obtain from the source, like title and postDate
+     * @return List of Articles from the specified author containing only the requested fields.
+     */
+    public List<Article> findAllArticlesForAuthor(String author, int from, int size, String... fields) {
+        return executeSearch("findAllArticlesForAuthor", allForAuthorQuery(author), from, size, fields);
+    }
+
+    /**
+     * Streams all articles available from the provided author using a scroll, close the stream when not consuming all
+     * articles.
+     *
+     * @param author   String containing the author to find articles for
+     * @param pageSize Number of articles obtained per request
+     * @return Stream of all Articles from the specified author.
+     */
+    public Stream<Article> streamAllArticlesForAuthor(String author, int pageSize) {
+        return executeScroll("streamAllArticlesForAuthor", allForAuthorQuery(author), false, pageSize);
     }
 
     /**
-     * Returns all found articles filtered by the provided issue and searched using the searchString.
+     * Returns all found articles filtered by the provided issue and searched using the searchString. Only the first
+     * page of results is returned.
      *
      * @param issue        String containing the issue to filter by
      * @param searchString String containing the string to search for
      * @return List of found Articles
      */
+    @Override
     public List<Article> searchAndFilterIssueArticlesBy(String issue, String searchString) {
-        if (issue == null || issue.isEmpty()) {
-            return searchArticlesBy(searchString);
-        }
-        if (searchString == null || searchString.isEmpty()) {
-            return findAllArticlesForIssue(issue);
-        }
-
-        QueryBuilder queryBuilder = boolQuery()
-                .must(multiMatchQuery(searchString, "description", "title"))
-                .filter(termsQuery("issue", issue));
-
-        SearchResponse searchResponse = client.prepareSearch(INDEX_BASE).setQuery(queryBuilder).get();
-        SearchHit[] hits = searchResponse.getHits().hits();
-
-        return Arrays.stream(hits)
-                .map(this::parseHitIntoArticle)
-                .collect(Collectors.toCollection(ArrayList::new));
+        return searchAndFilterIssueArticlesBy(issue, searchString, 0, DEFAULT_PAGE_SIZE);
+    }
 
+    /**
+     * Returns one page of the articles filtered by the provided issue and searched using the searchString.
+     *
+     * @param issue        String containing the issue to filter by
+     * @param searchString String containing the string to search for
+     * @param from         Index of the first article to return
+     * @param size         Maximum number of articles to return
+     * @return List of found Articles
+     */
+    public List<Article> searchAndFilterIssueArticlesBy(String issue, String searchString, int from, int size) {
+        return executeSearch("searchAndFilterIssueArticlesBy",
+                issueQuery(issue, searchString), from, size, null);
     }
 
     /**
-     * Returns all found articles filtered by the provided author and searched using the searchString.
+     * Returns all found articles filtered by the provided author and searched using the searchString. Only the first
+     * page of results is returned.
      *
      * @param author       String containing the author to filter by
      * @param searchString String containing the string to search for
      * @return List of found Articles
      */
+    @Override
     public List<Article> searchAndFilterAuthorArticlesBy(String author, String searchString) {
-        if (author == null || author.isEmpty()) {
-            return searchArticlesBy(searchString);
-        }
-        if (searchString == null || searchString.isEmpty()) {
-            return findAllArticlesForAuthor(author);
-        }
+        return searchAndFilterAuthorArticlesBy(author, searchString, 0, DEFAULT_PAGE_SIZE);
+    }
 
-        QueryBuilder queryBuilder = boolQuery()
-                .must(multiMatchQuery(searchString, "description", "title"))
-                .filter(termsQuery("author", author));
+    /**
+     * Returns one page of the articles filtered by the provided author and searched using the searchString.
+     *
+     * @param author       String containing the author to filter by
+     * @param searchString String containing the string to search for
+     * @param from         Index of the first article to return
+     * @param size         Maximum number of articles to return
+     * @return List of found Articles
+     */
+    public List<Article> searchAndFilterAuthorArticlesBy(String author, String searchString, int from, int size) {
+        return executeSearch("searchAndFilterAuthorArticlesBy",
+                authorQuery(author, searchString), from, size, null);
+    }
 
-        SearchResponse searchResponse = client.prepareSearch(INDEX_BASE).setQuery(queryBuilder).get();
-        SearchHit[] hits = searchResponse.getHits().hits();
+    /**
+     * Creates a batch to execute multiple queries in one round trip to the cluster.
+     *
+     * @return ArticleQueryBatch to add the queries to
+     */
+    public ArticleQueryBatch createQueryBatch() {
+        return new ArticleQueryBatch(client, articleJson);
+    }
 
-        return Arrays.stream(hits)
-                .map(this::parseHitIntoArticle)
-                .collect(Collectors.toCollection(ArrayList::new));
+    /**
+     * Streams every author with the exact number of articles, also when there are many more authors than fit in one
+     * terms aggregation. The authors are obtained in pages of about the provided size, see
+     * {@link #findAuthors()} for only the authors with the most articles.
+     *
+     * @param pageSize Approximate number of authors obtained per request
+     * @return Stream of all authors, sorted by name within each page
+     */
+    public Stream<TermBucket> streamAllAuthors(int pageSize) {
+        return streamAllTerms("streamAllAuthors", ArticleCriteria.AUTHOR, pageSize);
     }
 
+    /**
+     * Streams every issue with the exact number of articles, see {@link #streamAllAuthors(int)}.
+     *
+     * @param pageSize Approximate number of issues obtained per request
+     * @return Stream of all issues, sorted by name within each page
+     */
+    public Stream<TermBucket> streamAllIssues(int pageSize) {
+        return streamAllTerms("streamAllIssues", ArticleCriteria.ISSUE, pageSize);
+    }
+
+    /**
+     * Returns titles and authors that start with the provided prefix, meant to be called on every keystroke of a
+     * search box. The prefix may contain a typo, suggestions within the automatic edit distance are returned as well.
+     * Only the completion fields are used, no documents are searched or loaded. The titles and the authors are
+     * requested in one multi search, a suggest request that times out is not retried because the next keystroke
+     * replaces it anyway.
+     * Authors are suggested from the author index, authors with the most articles first. That index is filled by
+     * {@link #refreshRollup()}, which runs after rebuilding the index and after a crawl. Until the first refresh no
+     * authors are suggested, authors of articles added with {@link #indexArticle(Article)} are suggested after the
+     * next refresh.
+     *
+     * @param prefix Text typed so far
+     * @param size   Maximum number of titles and of authors to return
+     * @return ArticleSuggestions with the suggested titles and authors, best suggestions first
+     */
+    public ArticleSuggestions suggest(String prefix, int size) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return new ArticleSuggestions(Collections.emptyList(), Collections.emptyList());
+        }
+
+        SuggestBuilder suggestBuilder = new SuggestBuilder()
+                .addSuggestion("titles", completionSuggestion("title.suggest").prefix(prefix, Fuzziness.AUTO).size(size));
+        String preference = searchPreference.preference();
+        MultiSearchRequestBuilder multiSearch = client.prepareMultiSearch()
+                .add(client.prepareSearch(INDEX_BASE)
+                        .suggest(suggestBuilder)
+                        .setFetchSource(false)
+                        .setSize(0)
+                        .setPreference(preference))
+                .add(authorSuggestions.prepareSuggest("authors", prefix, size).setPreference(preference));
+
+        long start = System.nanoTime();
+        try {
+            MultiSearchResponse.Item[] responses = searchTimeout == null
+                    ? multiSearch.get().getResponses()
+                    : multiSearch.get(searchTimeout).getResponses();
+            long clientNanos = System.nanoTime() - start;
+            searchPreference.onResponse(preference, clientNanos);
+
+            SearchResponse titles = suggestResponse(responses[0]);
+            SearchResponse authors = suggestResponse(responses[1]);
+            metrics.recordRequest("suggest", Math.max(titles.getTookInMillis(), authors.getTookInMillis()),
+                    clientNanos, 0);
+            return new ArticleSuggestions(suggestionTexts(titles, "titles", size),
+                    suggestionTexts(authors, "authors", size));
+        } catch (ElasticsearchTimeoutException e) {
+            searchPreference.onFailure(preference);
+            metrics.recordError("suggest");
+            throw new ElasticExecutionException("suggest timed out after " + searchTimeout, e);
+        } catch (RuntimeException e) {
+            metrics.recordError("suggest");
+            throw e;
+        }
+    }
 
     /**
-     * Returns all found Issues and the the amount of articles in each issue.
+     * Returns the ten issues with the most articles and the amount of articles in each issue. Use
+     * {@link #streamAllIssues(int)} to obtain all issues.
      *
      * @return Map with the issue as a key and the number of articles as a value
      */
+    @Override
     public Map<String, Long> findIssues() {
-        SearchResponse searchResponse = client.prepareSearch(INDEX_BASE)
+        SearchRequestBuilder searchRequestBuilder = client.prepareSearch(INDEX_BASE)
                 .addAggregation(terms("issues").field("issue"))
-                .setSize(0)
-                .get();
+                .setSize(0);
 
-        Terms issues = searchResponse.getAggregations().get("issues");
-        Map<String, Long> foundIssues = new LinkedHashMap<>();
-        issues.getBuckets().forEach(bucket -> {
-            foundIssues.put(bucket.getKeyAsString(), bucket.getDocCount());
-        });
-
-        return foundIssues;
+        return instrumented("findIssues", searchRequestBuilder,
+                response -> bucketCounts((Terms) response.getAggregations().get("issues")));
     }
 
     /**
-     * Returns all found authors and the amount of articles each author has written.
+     * Returns the ten authors with the most articles and the amount of articles each author has written. Use
+     * {@link #streamAllAuthors(int)} to obtain all authors.
      *
      * @return Map with the author as a key and the number of articles as a value
      */
+    @Override
     public Map<String, Long> findAuthors() {
-        SearchResponse searchResponse = client.prepareSearch(INDEX_BASE)
+        SearchRequestBuilder searchRequestBuilder = client.prepareSearch(INDEX_BASE)
                 .addAggregation(terms("authors").field("author"))
-                .setSize(0)
-                .get();
+                .setSize(0);
 
-        Terms issues = searchResponse.getAggregations().get("authors");
-        Map<String, Long> foundAuthors = new LinkedHashMap<>();
+        return instrumented("findAuthors", searchRequestBuilder,
+                response -> bucketCounts((Terms) response.getAggregations().get("authors")));
+    }
 
-        issues.getBuckets().forEach(bucket -> {
-            foundAuthors.put(bucket.getKeyAsString(), bucket.getDocCount());
-        });
+    /**
+     * Counts the articles per month or year using a date histogram on the post date. Per period the articles can be
+     * broken down by author and issue.
+     *
+     * @param interval        Length of the periods
+     * @param minDocCount     Minimum number of articles in a period, use 0 to include the empty periods between the
+     *                        first and the last article
+     * @param breakdownFields Fields to count the articles per period for, like {@link ArticleCriteria#AUTHOR}
+     * @return List with the periods, oldest first
+     */
+    public List<ArticlePeriod> findArticlesPerPeriod(ArticlePeriod.Interval interval, long minDocCount,
+                                                     String... breakdownFields) {
+        SearchRequestBuilder searchRequestBuilder = client.prepareSearch(INDEX_BASE)
+                .addAggregation(periodHistogram(interval, minDocCount, breakdownFields))
+                .setSize(0);
 
-        return foundAuthors;
+        return instrumented("findArticlesPerPeriod", searchRequestBuilder,
+                response -> articlePeriods(response, breakdownFields));
     }
 
-    private Article parseHitIntoArticle(SearchHit hit) {
+    /**
+     * Returns the periods with articles from the rollup index, including the breakdown by author and issue. Reading
+     * the rollup is much cheaper than {@link #findArticlesPerPeriod}, but only reflects the articles at the last
+     * {@link #refreshRollup()}.
+     *
+     * @param interval Length of the periods
+     * @return List with the periods, oldest first
+     */
+    public List<ArticlePeriod> findRolledUpArticlesPerPeriod(ArticlePeriod.Interval interval) {
+        return rollup.read(interval);
+    }
+
+    /**
+     * Computes the number of articles per month and year and the authors used for suggestions again and stores them in
+     * their own indexes. Called after rebuilding the index, call it after indexing articles in another way.
+     */
+    public void refreshRollup() {
+        rollup.refresh();
+        authorSuggestions.refresh();
+    }
+
+    /**
+     * Refreshes the rollup after articles were written. The articles are searchable already, a failing refresh only
+     * leaves the rollup and author suggestions at the previous refresh and is logged instead of thrown.
+     */
+    void refreshRollupAfterIndexing() {
         try {
-            return objectMapper.readValue(hit.getSourceAsString(), Article.class);
-        } catch (IOException e) {
-            logger.error("Error parsing article", e);
+            refreshRollup();
+        } catch (RuntimeException e) {
+            logger.error("Could not refresh the rollup after indexing, it reflects the previous refresh", e);
         }
-        return null;
+    }
+
+    private String newIndexName() {
+        return INDEX_BASE + "-" + LocalDateTime.now().format(INDEX_TIMESTAMP);
+    }
+
+    private void executeCreateIndex(CreateIndexRequest request) {
+        try {
+            CreateIndexResponse createIndexResponse = this.client.admin().indices().create(request).get();
+            if (!createIndexResponse.isAcknowledged()) {
+                throw new ElasticExecutionException("Create java_magazine index was not acknowledged");
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error while creating an index", e);
+            throw new ElasticExecutionException("Error when trying to create an index");
+        }
+    }
+
+    private List<Article> executeSearch(String method, QueryBuilder queryBuilder, int from, int size, String[] fields) {
+        SearchRequestBuilder searchRequestBuilder = client.prepareSearch(INDEX_BASE)
+                .setQuery(queryBuilder)
+                .setFrom(from)
+                .setSize(size);
+        if (fields != null) {
+            searchRequestBuilder.setFetchSource(fields, null);
+        }
+
+        return instrumented(method, searchRequestBuilder, response -> articleJson.readHits(response.getHits().hits()));
+    }
+
+    /**
+     * Executes the search and converts the response while recording the latency, the number of hits and errors.
+     * Searches that take longer than the slow query threshold are logged together with the query.
+     */
+    private <T> T instrumented(String method, SearchRequestBuilder searchRequestBuilder,
+                               Function<SearchResponse, T> converter) {
+        long start = System.nanoTime();
+        try {
+            SearchResponse response = executeWithRetry(method, searchRequestBuilder);
+            T result = converter.apply(response);
+            long clientNanos = System.nanoTime() - start;
+
+            metrics.recordRequest(method, response.getTookInMillis(), clientNanos, response.getHits().getTotalHits());
+            if (slowQueryThreshold != null && clientNanos >= slowQueryThreshold.nanos()) {
+                slowQueryLogger.warn("{} took {} ms, {} ms on the cluster, query: {}", method,
+                        TimeUnit.NANOSECONDS.toMillis(clientNanos), response.getTookInMillis(), searchRequestBuilder);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordError(method);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes the search using the preference of the search preference strategy. When a search timeout is set, a
+     * search that did not respond in time is retried using the retry preference of the strategy.
+     */
+    private SearchResponse executeWithRetry(String method, SearchRequestBuilder searchRequestBuilder) {
+        String preference = searchPreference.preference();
+        for (int attempt = 0; ; attempt++) {
+            searchRequestBuilder.setPreference(preference);
+            long start = System.nanoTime();
+            try {
+                SearchResponse response = searchTimeout == null
+                        ? searchRequestBuilder.get()
+                        : searchRequestBuilder.get(searchTimeout);
+                searchPreference.onResponse(preference, System.nanoTime() - start);
+                return response;
+            } catch (ElasticsearchTimeoutException e) {
+                searchPreference.onFailure(preference);
+                if (attempt >= searchRetries) {
+                    throw new ElasticExecutionException(method + " timed out after " + (attempt + 1) + " attempts", e);
+                }
+                logger.warn("{} timed out after {} using preference {}, retrying", method, searchTimeout, preference);
+                preference = searchPreference.retryPreference(preference);
+            }
+        }
+    }
+
+    private static SearchResponse suggestResponse(MultiSearchResponse.Item item) {
+        if (item.isFailure()) {
+            throw new ElasticExecutionException("Error when trying to suggest: " + item.getFailureMessage(),
+                    item.getFailure());
+        }
+        return item.getResponse();
+    }
+
+    private static List<String> suggestionTexts(SearchResponse response, String name, int size) {
+        if (response.getSuggest() == null) {
+            return Collections.emptyList();
+        }
+        CompletionSuggestion suggestion = response.getSuggest().getSuggestion(name);
+        return suggestion.getEntries().stream()
+                .flatMap(entry -> entry.getOptions().stream())
+                .map(option -> option.getText().string())
+                .distinct()
+                .limit(size)
+                .collect(Collectors.toList());
+    }
+
+    private Stream<TermBucket> streamAllTerms(String method, String field, int pageSize) {
+        TermsPartitionIterator iterator = new TermsPartitionIterator(client, field, pageSize,
+                searchRequestBuilder -> instrumented(method, searchRequestBuilder, response -> response));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    private static Map<String, List<String>> highlightFragments(SearchHit hit) {
+        Map<String, List<String>> fragments = new HashMap<>();
+        hit.getHighlightFields().forEach((field, highlightField) -> fragments.put(field,
+                Arrays.stream(highlightField.fragments()).map(Text::string).collect(Collectors.toList())));
+        return fragments;
+    }
+
+    private void exportSlice(ArticleSnapshotFile.Writer writer, int slice, int slices) throws IOException {
+        SearchRequestBuilder searchRequestBuilder = client.prepareSearch(INDEX_BASE)
+                .setQuery(matchAllQuery())
+                .setScroll(SCROLL_KEEP_ALIVE)
+                .setSize(EXPORT_PAGE_SIZE)
+                .addSort(SortBuilders.fieldSort("_doc"));
+        if (slices > 1) {
+            searchRequestBuilder.slice(new SliceBuilder(slice, slices));
+        }
+
+        SearchResponse response = searchRequestBuilder.get();
+        try {
+            while (response.getHits().hits().length > 0) {
+                List<BytesReference> sources = new ArrayList<>(response.getHits().hits().length);
+                for (SearchHit hit : response.getHits().hits()) {
+                    sources.add(hit.getSourceRef());
+                }
+                writer.write(sources);
+                response = client.prepareSearchScroll(response.getScrollId()).setScroll(SCROLL_KEEP_ALIVE).get();
+            }
+        } finally {
+            client.prepareClearScroll().addScrollId(response.getScrollId()).get();
+        }
+    }
+
+    /**
+     * Scrolls through the articles matching the query. Scored queries return the best matches first, the other
+     * queries are scrolled in index order, which is the cheapest order for a scroll.
+     */
+    private Stream<Article> executeScroll(String method, QueryBuilder queryBuilder, boolean scored, int pageSize) {
+        SearchRequestBuilder searchRequestBuilder = client.prepareSearch(INDEX_BASE)
+                .setQuery(queryBuilder)
+                .setScroll(SCROLL_KEEP_ALIVE)
+                .setSize(pageSize);
+        if (!scored) {
+            // Without scoring there is no need to sort, index order is the cheapest for scrolling
+            searchRequestBuilder.addSort(SortBuilders.fieldSort("_doc"));
+        }
+
+        ArticleScrollIterator iterator = new ArticleScrollIterator(client,
+                instrumented(method, searchRequestBuilder, response -> response), SCROLL_KEEP_ALIVE, articleJson::readHit);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
     }
 }
@@ -0,0 +1,166 @@
+package eu.luminis.elastic;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static eu.luminis.elastic.ArticleQueries.INDEX_BASE;
+import static eu.luminis.elastic.ArticleQueries.articlePeriods;
+import static eu.luminis.elastic.ArticleQueries.periodHistogram;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+
+/**
+ * <p>Keeps a small index with the number of articles per month and per year, broken down by author and issue. The
+ * summaries are computed with the same date histogram as {@link ArticleRepository#findArticlesPerPeriod} and stored
+ * as one document per period. Dashboards read these few documents instead of aggregating all articles.</p>
+ * <p>The breakdowns are only stored in the source, they are not indexed. The rollup is refreshed after loading
+ * articles, documents of periods that no longer contain articles are removed.</p>
+ */
+class ArticleRollup {
+    static final String ROLLUP_INDEX = "article-rollups";
+    private static final Logger logger = LogManager.getLogger(ArticleRollup.class);
+    private static final String ROLLUP_TYPE = "period";
+    private static final int MAX_PERIODS = 10000;
+    private static final String ROLLUP_MAPPING = "{\n" +
+            "    \"period\": {\n" +
+            "      \"properties\": {\n" +
+            "        \"interval\": {\n" +
+            "          \"type\": \"keyword\"\n" +
+            "        },\n" +
+            "        \"start\": {\n" +
+            "          \"type\": \"date\",\n" +
+            "          \"format\": \"yyyy-MM-dd\"\n" +
+            "        },\n" +
+            "        \"articleCount\": {\n" +
+            "          \"type\": \"long\"\n" +
+            "        },\n" +
+            "        \"breakdowns\": {\n" +
+            "          \"type\": \"object\",\n" +
+            "          \"enabled\": false\n" +
+            "        }\n" +
+            "      }\n" +
+            "    }\n" +
+            "  }";
+
+    private final Client client;
+
+    ArticleRollup(Client client) {
+        this.client = client;
+    }
+
+    /**
+     * Computes the periods from the articles index and replaces the documents in the rollup index.
+     */
+    void refresh() {
+        try {
+            createIndexIfMissing();
+            client.admin().indices().refresh(new RefreshRequest(INDEX_BASE)).get();
+
+            BulkRequestBuilder bulkRequest = client.prepareBulk();
+            Set<String> currentIds = new HashSet<>();
+            for (ArticlePeriod.Interval interval : ArticlePeriod.Interval.values()) {
+                SearchResponse response = client.prepareSearch(INDEX_BASE)
+                        .addAggregation(periodHistogram(interval, 1, ArticleCriteria.AUTHOR, ArticleCriteria.ISSUE))
+                        .setSize(0)
+                        .get();
+                for (ArticlePeriod period : articlePeriods(response, ArticleCriteria.AUTHOR, ArticleCriteria.ISSUE)) {
+                    String id = interval.name() + "-" + period.getStart();
+                    currentIds.add(id);
+                    bulkRequest.add(client.prepareIndex(ROLLUP_INDEX, ROLLUP_TYPE, id).setSource(toSource(interval, period)));
+                }
+            }
+
+            SearchResponse existing = client.prepareSearch(ROLLUP_INDEX).setFetchSource(false).setSize(MAX_PERIODS).get();
+            for (SearchHit hit : existing.getHits().hits()) {
+                if (!currentIds.contains(hit.getId())) {
+                    bulkRequest.add(client.prepareDelete(ROLLUP_INDEX, ROLLUP_TYPE, hit.getId()));
+                }
+            }
+
+            if (bulkRequest.numberOfActions() > 0) {
+                BulkResponse bulkResponse = bulkRequest.get();
+                if (bulkResponse.hasFailures()) {
+                    throw new ElasticExecutionException("Error writing the rollup: " + bulkResponse.buildFailureMessage());
+                }
+            }
+            client.admin().indices().refresh(new RefreshRequest(ROLLUP_INDEX)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error while refreshing the rollup", e);
+            throw new ElasticExecutionException("Error when trying to refresh the rollup", e);
+        }
+    }
+
+    /**
+     * Reads the stored periods of the provided interval, oldest first.
+     */
+    List<ArticlePeriod> read(ArticlePeriod.Interval interval) {
+        SearchResponse response = client.prepareSearch(ROLLUP_INDEX)
+                .setQuery(termQuery("interval", interval.name()))
+                .addSort("start", SortOrder.ASC)
+                .setSize(MAX_PERIODS)
+                .get();
+
+        List<ArticlePeriod> periods = new ArrayList<>();
+        for (SearchHit hit : response.getHits().hits()) {
+            periods.add(fromSource(hit.getSource()));
+        }
+        return periods;
+    }
+
+    private void createIndexIfMissing() throws InterruptedException, ExecutionException {
+        if (client.admin().indices().prepareExists(ROLLUP_INDEX).get().isExists()) {
+            return;
+        }
+        Settings settings = Settings.builder()
+                .put("number_of_shards", 1)
+                .put("number_of_replicas", 0)
+                .build();
+        CreateIndexRequest request = new CreateIndexRequest(ROLLUP_INDEX, settings);
+        request.mapping(ROLLUP_TYPE, ROLLUP_MAPPING, XContentType.JSON);
+        client.admin().indices().create(request).get();
+    }
+
+    private static Map<String, Object> toSource(ArticlePeriod.Interval interval, ArticlePeriod period) {
+        Map<String, Object> breakdowns = new HashMap<>();
+        breakdowns.put(ArticleCriteria.AUTHOR, period.getBreakdown(ArticleCriteria.AUTHOR));
+        breakdowns.put(ArticleCriteria.ISSUE, period.getBreakdown(ArticleCriteria.ISSUE));
+
+        Map<String, Object> source = new HashMap<>();
+        source.put("interval", interval.name());
+        source.put("start", period.getStart().toString());
+        source.put("articleCount", period.getArticleCount());
+        source.put("breakdowns", breakdowns);
+        return source;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArticlePeriod fromSource(Map<String, Object> source) {
+        Map<String, Map<String, Long>> breakdowns = new HashMap<>();
+        ((Map<String, Map<String, Number>>) source.get("breakdowns")).forEach((field, counts) -> {
+            Map<String, Long> breakdown = new LinkedHashMap<>();
+            counts.forEach((value, count) -> breakdown.put(value, count.longValue()));
+            breakdowns.put(field, breakdown);
+        });
+        return new ArticlePeriod(LocalDate.parse((String) source.get("start")),
+                ((Number) source.get("articleCount")).longValue(), breakdowns);
+    }
+}
@@ -0,0 +1,73 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterator over all articles of a scroll search. Only one page of hits is kept in memory, the next page is requested
+ * when the current page is consumed. The scroll is cleared when the last page is reached or when the iterator is
+ * closed.
+ */
+class ArticleScrollIterator implements Iterator<Article>, AutoCloseable {
+    private final Client client;
+    private final TimeValue keepAlive;
+    private final Function<SearchHit, Article> hitParser;
+
+    private String scrollId;
+    private SearchHit[] hits;
+    private int position;
+
+    ArticleScrollIterator(Client client, SearchResponse firstResponse, TimeValue keepAlive,
+                          Function<SearchHit, Article> hitParser) {
+        this.client = client;
+        this.keepAlive = keepAlive;
+        this.hitParser = hitParser;
+        nextPage(firstResponse);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (position < hits.length) {
+            return true;
+        }
+        if (scrollId == null) {
+            return false;
+        }
+        nextPage(client.prepareSearchScroll(scrollId).setScroll(keepAlive).get());
+        return position < hits.length;
+    }
+
+    @Override
+    public Article next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return hitParser.apply(hits[position++]);
+    }
+
+    /**
+     * Releases the scroll context on the cluster, can be called multiple times.
+     */
+    @Override
+    public void close() {
+        if (scrollId != null) {
+            client.prepareClearScroll().addScrollId(scrollId).get();
+            scrollId = null;
+        }
+    }
+
+    private void nextPage(SearchResponse response) {
+        this.scrollId = response.getScrollId();
+        this.hits = response.getHits().hits();
+        this.position = 0;
+        if (hits.length == 0) {
+            close();
+        }
+    }
+}
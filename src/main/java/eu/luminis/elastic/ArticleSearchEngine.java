@@ -0,0 +1,60 @@
+package eu.luminis.elastic;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes, searches and counts articles. {@link ArticleRepository} implements it using elasticsearch,
+ * {@link InMemoryArticleSearchEngine} answers the same queries from memory without a cluster. Searches return the
+ * first page of ten articles, the best matching articles first.
+ */
+public interface ArticleSearchEngine {
+    /**
+     * Indexes the article, replacing an article with the same link.
+     *
+     * @param article Article object to index.
+     */
+    void indexArticle(Article article);
+
+    /**
+     * @param searchString String to search for in the title and description, if empty we return everything
+     * @return List of Articles found by the query.
+     */
+    List<Article> searchArticlesBy(String searchString);
+
+    /**
+     * @param issue String containing the issue to find articles for
+     * @return List of Articles from the specified issue.
+     */
+    List<Article> findAllArticlesForIssue(String issue);
+
+    /**
+     * @param author String containing the author to find articles for
+     * @return List of Articles from the specified author.
+     */
+    List<Article> findAllArticlesForAuthor(String author);
+
+    /**
+     * @param issue        String containing the issue to filter by
+     * @param searchString String containing the string to search for
+     * @return List of found Articles
+     */
+    List<Article> searchAndFilterIssueArticlesBy(String issue, String searchString);
+
+    /**
+     * @param author       String containing the author to filter by
+     * @param searchString String containing the string to search for
+     * @return List of found Articles
+     */
+    List<Article> searchAndFilterAuthorArticlesBy(String author, String searchString);
+
+    /**
+     * @return Map with the ten issues with the most articles as a key and the number of articles as a value
+     */
+    Map<String, Long> findIssues();
+
+    /**
+     * @return Map with the ten authors with the most articles as a key and the number of articles as a value
+     */
+    Map<String, Long> findAuthors();
+}
@@ -0,0 +1,50 @@
+package eu.luminis.elastic;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of articles found using {@link ArticleCriteria}, together with the total number of matching articles, the
+ * requested facets and the highlighted fragments per article.
+ */
+public class ArticleSearchResult {
+    private final List<Article> articles;
+    private final long totalHits;
+    private final Map<String, Map<String, Long>> facets;
+    private final List<Map<String, List<String>>> fragments;
+
+    ArticleSearchResult(List<Article> articles, long totalHits, Map<String, Map<String, Long>> facets,
+                        List<Map<String, List<String>>> fragments) {
+        this.articles = articles;
+        this.totalHits = totalHits;
+        this.facets = facets;
+        this.fragments = fragments;
+    }
+
+    public List<Article> getArticles() {
+        return articles;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * @param field Field of the facet, like {@link ArticleCriteria#AUTHOR}
+     * @return Map with the value as a key and the number of matching articles as a value, empty when the facet was
+     * not requested
+     */
+    public Map<String, Long> getFacet(String field) {
+        return facets.getOrDefault(field, Collections.emptyMap());
+    }
+
+    /**
+     * @param index Position of the article in {@link #getArticles()}
+     * @param field Highlighted field, {@link ArticleCriteria#TITLE} or {@link ArticleCriteria#DESCRIPTION}
+     * @return List with the fragments of the field, empty when no highlight was requested
+     */
+    public List<String> getFragments(int index, String field) {
+        return fragments.get(index).getOrDefault(field, Collections.emptyList());
+    }
+}
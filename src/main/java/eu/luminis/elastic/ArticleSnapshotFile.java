@@ -0,0 +1,197 @@
+package eu.luminis.elastic;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Binary file containing the source of all articles, used to export an index and load it again. The file starts
+ * with a header, followed by a record per article and a trailer:</p>
+ * <pre>
+ * header:  int magic, int version
+ * record:  int length, byte[length] json source of the article
+ * trailer: int -1, long number of records
+ * </pre>
+ * <p>The trailer makes a truncated file fail on reading instead of silently loading part of the articles. Records are
+ * not compressed, so the reader can map the file in memory and read it without copying it through the heap.</p>
+ */
+final class ArticleSnapshotFile {
+    private static final int MAGIC = 0x41525453;
+    private static final int VERSION = 1;
+    private static final int END_OF_RECORDS = -1;
+    private static final int HEADER_LENGTH = 8;
+    private static final int TRAILER_LENGTH = 8;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final int MAP_WINDOW_SIZE = 64 << 20;
+
+    private ArticleSnapshotFile() {
+    }
+
+    /**
+     * Writes the records of a snapshot file, thread safe so multiple scroll slices can write to the same file.
+     */
+    static class Writer implements AutoCloseable {
+        private final DataOutputStream output;
+        private long recordCount;
+
+        Writer(Path file) throws IOException {
+            this.output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)),
+                    WRITE_BUFFER_SIZE));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+        }
+
+        /**
+         * Writes the sources as consecutive records, sources of one call are not interleaved with other threads.
+         */
+        synchronized void write(Iterable<BytesReference> sources) throws IOException {
+            for (BytesReference source : sources) {
+                BytesRef bytesRef = source.toBytesRef();
+                output.writeInt(bytesRef.length);
+                output.write(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+                recordCount++;
+            }
+        }
+
+        synchronized long getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * Writes the trailer, only call this when all records are written. A file closed without the trailer is
+         * rejected by the reader.
+         */
+        synchronized void finish() throws IOException {
+            output.writeInt(END_OF_RECORDS);
+            output.writeLong(recordCount);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            output.close();
+        }
+    }
+
+    /**
+     * Iterator over the articles of a snapshot file. The file is mapped in windows of at most 64 MB, so files larger
+     * than the heap, or than 2 GB, are read with a bounded amount of memory.
+     */
+    static class Reader implements Iterator<Article>, AutoCloseable {
+        private final FileChannel channel;
+        private final ArticleJson articleJson;
+        private final long fileSize;
+
+        private long windowStart;
+        private ByteBuffer window;
+        private long recordCount;
+        private Article next;
+        private boolean finished;
+
+        Reader(Path file, ArticleJson articleJson) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.articleJson = articleJson;
+            this.fileSize = channel.size();
+            try {
+                map(0, HEADER_LENGTH);
+                if (window.getInt() != MAGIC) {
+                    throw new IOException("File " + file + " is not an article snapshot");
+                }
+                int version = window.getInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported article snapshot version " + version);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            try {
+                next = readRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return next != null;
+        }
+
+        @Override
+        public Article next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Article article = next;
+            next = null;
+            return article;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private Article readRecord() throws IOException {
+            ensureAvailable(Integer.BYTES);
+            int length = window.getInt();
+            if (length == END_OF_RECORDS) {
+                ensureAvailable(TRAILER_LENGTH);
+                long expectedCount = window.getLong();
+                if (expectedCount != recordCount) {
+                    throw new IOException("Snapshot contains " + recordCount + " articles, expected " + expectedCount);
+                }
+                finished = true;
+                return null;
+            }
+            if (length < 0) {
+                throw new IOException("Invalid record length " + length + " at position " + position());
+            }
+
+            ensureAvailable(length);
+            byte[] source = new byte[length];
+            window.get(source);
+            recordCount++;
+            return articleJson.read(source);
+        }
+
+        private void ensureAvailable(int length) throws IOException {
+            if (window.remaining() >= length) {
+                return;
+            }
+            map(position(), length);
+            if (window.remaining() < length) {
+                throw new IOException("Snapshot is truncated at position " + position());
+            }
+        }
+
+        private void map(long start, int minimalLength) throws IOException {
+            long length = Math.min(Math.max(MAP_WINDOW_SIZE, minimalLength), fileSize - start);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            this.windowStart = start;
+            this.window = buffer;
+        }
+
+        private long position() {
+            return windowStart + window.position();
+        }
+    }
+}
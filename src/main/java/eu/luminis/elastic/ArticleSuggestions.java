@@ -0,0 +1,32 @@
+package eu.luminis.elastic;
+
+import java.util.List;
+
+/**
+ * Titles and authors suggested for the text typed so far.
+ */
+public class ArticleSuggestions {
+    private final List<String> titles;
+    private final List<String> authors;
+
+    ArticleSuggestions(List<String> titles, List<String> authors) {
+        this.titles = titles;
+        this.authors = authors;
+    }
+
+    public List<String> getTitles() {
+        return titles;
+    }
+
+    public List<String> getAuthors() {
+        return authors;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleSuggestions{" +
+                "titles=" + titles +
+                ", authors=" + authors +
+                '}';
+    }
+}
@@ -0,0 +1,222 @@
+package eu.luminis.elastic;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static eu.luminis.elastic.ArticleQueries.INDEX_BASE;
+import static eu.luminis.elastic.ArticleQueries.allForAuthorQuery;
+import static eu.luminis.elastic.ArticleQueries.allForIssueQuery;
+import static eu.luminis.elastic.ArticleQueries.authorQuery;
+import static eu.luminis.elastic.ArticleQueries.bucketCounts;
+import static eu.luminis.elastic.ArticleQueries.issueQuery;
+import static eu.luminis.elastic.ArticleQueries.searchQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+
+/**
+ * <p>Non blocking variant of the {@link ArticleRepository}. Every method sends the request and immediately returns a
+ * CompletableFuture that is completed when the response arrives, no thread waits for the cluster in the meantime.</p>
+ * <p>Failures complete the future exceptionally with an {@link ElasticExecutionException}. By default the responses
+ * are converted on the network thread that received them, provide an Executor to move the conversion and all
+ * dependent stages to your own pool.</p>
+ */
+public class AsyncArticleRepository {
+    private static final Logger logger = LogManager.getLogger(AsyncArticleRepository.class);
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    private final Client client;
+    private final Executor responseExecutor;
+    private final ArticleJson articleJson;
+
+    public AsyncArticleRepository(Client client) {
+        this(client, Runnable::run);
+    }
+
+    /**
+     * @param client           Client used to send the requests
+     * @param responseExecutor Executor used to convert the responses and complete the futures
+     */
+    public AsyncArticleRepository(Client client, Executor responseExecutor) {
+        this.client = client;
+        this.responseExecutor = responseExecutor;
+        this.articleJson = new ArticleJson();
+    }
+
+    /**
+     * Returns the cluster status (GREEN, YELLOW, RED)
+     *
+     * @return Future with the cluster status
+     */
+    public CompletableFuture<String> getStatus() {
+        return execute(client.admin().cluster().prepareHealth(),
+                (ClusterHealthResponse response) -> response.getStatus().name(),
+                "Error when trying to obtain the server status");
+    }
+
+    /**
+     * Removes all indexes starting with <em>articles-</em>
+     *
+     * @return Future completed when the indexes are removed
+     */
+    public CompletableFuture<Void> deleteAllIndexes() {
+        return execute(client.admin().indices().prepareDelete(INDEX_BASE + "-*"),
+                (DeleteIndexResponse response) -> null,
+                "Error when trying to delete the indexes");
+    }
+
+    /**
+     * Index the provided article in the index the alias articles is pointing to. The id of the document is derived
+     * from the link of the article, indexing an article with the same link replaces the existing document.
+     *
+     * @param article Article object to index.
+     * @return Future with the id of the indexed article
+     */
+    public CompletableFuture<String> indexArticle(Article article) {
+        try {
+            return execute(client.prepareIndex(INDEX_BASE, "article", ArticleFingerprints.documentId(article))
+                            .setSource(articleJson.write(article), XContentType.JSON),
+                    response -> response.getId(),
+                    "Error indexing document");
+        } catch (JsonProcessingException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new ElasticExecutionException("Error indexing document", e));
+            return failed;
+        }
+    }
+
+    /**
+     * Searches the title and description fields for occurrences, see {@link ArticleRepository#searchArticlesBy(String)}.
+     *
+     * @param searchString String to search for, if empty we return everything
+     * @return Future with the first page of Articles found by the query.
+     */
+    public CompletableFuture<List<Article>> searchArticlesBy(String searchString) {
+        return searchArticlesBy(searchString, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Returns one page of the articles matching the search string in the title or description fields.
+     *
+     * @param searchString String to search for, if empty we return everything
+     * @param from         Index of the first article to return
+     * @param size         Maximum number of articles to return
+     * @return Future with the Articles found by the query.
+     */
+    public CompletableFuture<List<Article>> searchArticlesBy(String searchString, int from, int size) {
+        return executeSearch(searchQuery(searchString), from, size);
+    }
+
+    /**
+     * Returns the first page of articles available from the provided issue.
+     *
+     * @param issue String containing the issue to find articles for
+     * @return Future with the Articles from the specified issue.
+     */
+    public CompletableFuture<List<Article>> findAllArticlesForIssue(String issue) {
+        return executeSearch(allForIssueQuery(issue), 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Returns the first page of articles available from the provided author.
+     *
+     * @param author String containing the author to find articles for
+     * @return Future with the Articles from the specified author.
+     */
+    public CompletableFuture<List<Article>> findAllArticlesForAuthor(String author) {
+        return executeSearch(allForAuthorQuery(author), 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Returns the first page of articles filtered by the provided issue and searched using the searchString.
+     *
+     * @param issue        String containing the issue to filter by
+     * @param searchString String containing the string to search for
+     * @return Future with the found Articles
+     */
+    public CompletableFuture<List<Article>> searchAndFilterIssueArticlesBy(String issue, String searchString) {
+        return executeSearch(issueQuery(issue, searchString), 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Returns the first page of articles filtered by the provided author and searched using the searchString.
+     *
+     * @param author       String containing the author to filter by
+     * @param searchString String containing the string to search for
+     * @return Future with the found Articles
+     */
+    public CompletableFuture<List<Article>> searchAndFilterAuthorArticlesBy(String author, String searchString) {
+        return executeSearch(authorQuery(author, searchString), 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Returns all found Issues and the the amount of articles in each issue.
+     *
+     * @return Future with the issue as a key and the number of articles as a value
+     */
+    public CompletableFuture<Map<String, Long>> findIssues() {
+        return executeTermsAggregation("issues", "issue");
+    }
+
+    /**
+     * Returns all found authors and the amount of articles each author has written.
+     *
+     * @return Future with the author as a key and the number of articles as a value
+     */
+    public CompletableFuture<Map<String, Long>> findAuthors() {
+        return executeTermsAggregation("authors", "author");
+    }
+
+    private CompletableFuture<List<Article>> executeSearch(QueryBuilder queryBuilder, int from, int size) {
+        return execute(client.prepareSearch(INDEX_BASE).setQuery(queryBuilder).setFrom(from).setSize(size),
+                (SearchResponse response) -> articleJson.readHits(response.getHits().hits()),
+                "Error when trying to search for articles");
+    }
+
+    private CompletableFuture<Map<String, Long>> executeTermsAggregation(String name, String field) {
+        return execute(client.prepareSearch(INDEX_BASE).addAggregation(terms(name).field(field)).setSize(0),
+                (SearchResponse response) -> bucketCounts((Terms) response.getAggregations().get(name)),
+                "Error when trying to obtain the " + name);
+    }
+
+    private <Response extends ActionResponse, T> CompletableFuture<T> execute(
+            ActionRequestBuilder<?, Response, ?> requestBuilder, Function<Response, T> converter, String errorMessage) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        requestBuilder.execute(new ActionListener<Response>() {
+            @Override
+            public void onResponse(Response response) {
+                responseExecutor.execute(() -> {
+                    try {
+                        future.complete(converter.apply(response));
+                    } catch (RuntimeException e) {
+                        logger.error(errorMessage, e);
+                        future.completeExceptionally(new ElasticExecutionException(errorMessage, e));
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                logger.error(errorMessage, e);
+                responseExecutor.execute(() ->
+                        future.completeExceptionally(new ElasticExecutionException(errorMessage, e)));
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,168 @@
+package eu.luminis.elastic;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.suggest.SuggestBuilder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static eu.luminis.elastic.ArticleQueries.INDEX_BASE;
+import static org.elasticsearch.search.suggest.SuggestBuilders.completionSuggestion;
+
+/**
+ * <p>Keeps a small index with one document per author, used to suggest authors. The completion suggester of
+ * elasticsearch 5 returns an option per document, suggesting authors from the articles returns the same author once
+ * for every article and a prolific author pushes all others out of the suggestions. With one document per author
+ * every suggestion is a different author, authors with more articles are suggested first.</p>
+ * <p>The index is refreshed together with the rollup, authors without articles are removed.</p>
+ */
+class AuthorSuggestions {
+    static final String AUTHORS_INDEX = "article-authors";
+    private static final Logger logger = LogManager.getLogger(AuthorSuggestions.class);
+    private static final String AUTHOR_TYPE = "author";
+    private static final int PAGE_SIZE = 1000;
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+    private static final String AUTHORS_MAPPING = "{\n" +
+            "    \"author\": {\n" +
+            "      \"properties\": {\n" +
+            "        \"name\": {\n" +
+            "          \"type\": \"keyword\"\n" +
+            "        },\n" +
+            "        \"articleCount\": {\n" +
+            "          \"type\": \"long\"\n" +
+            "        },\n" +
+            "        \"suggest\": {\n" +
+            "          \"type\": \"completion\"\n" +
+            "        }\n" +
+            "      }\n" +
+            "    }\n" +
+            "  }";
+
+    private final Client client;
+
+    AuthorSuggestions(Client client) {
+        this.client = client;
+    }
+
+    /**
+     * Writes a document for every author in the articles index and removes the documents of other authors.
+     */
+    void refresh() {
+        try {
+            createIndexIfMissing();
+            client.admin().indices().refresh(new RefreshRequest(INDEX_BASE)).get();
+
+            Set<String> currentAuthors = new HashSet<>();
+            BulkRequestBuilder bulkRequest = client.prepareBulk();
+            TermsPartitionIterator authors = new TermsPartitionIterator(client, ArticleCriteria.AUTHOR, PAGE_SIZE,
+                    SearchRequestBuilder::get);
+            while (authors.hasNext()) {
+                TermBucket author = authors.next();
+                currentAuthors.add(author.getTerm());
+                bulkRequest.add(client.prepareIndex(AUTHORS_INDEX, AUTHOR_TYPE, author.getTerm()).setSource(toSource(author)));
+                bulkRequest = executeWhenFull(bulkRequest);
+            }
+
+            SearchResponse response = client.prepareSearch(AUTHORS_INDEX)
+                    .setFetchSource(false)
+                    .setScroll(SCROLL_KEEP_ALIVE)
+                    .setSize(PAGE_SIZE)
+                    .addSort(SortBuilders.fieldSort("_doc"))
+                    .get();
+            try {
+                while (response.getHits().hits().length > 0) {
+                    for (SearchHit hit : response.getHits().hits()) {
+                        if (!currentAuthors.contains(hit.getId())) {
+                            bulkRequest.add(client.prepareDelete(AUTHORS_INDEX, AUTHOR_TYPE, hit.getId()));
+                            bulkRequest = executeWhenFull(bulkRequest);
+                        }
+                    }
+                    response = client.prepareSearchScroll(response.getScrollId()).setScroll(SCROLL_KEEP_ALIVE).get();
+                }
+            } finally {
+                client.prepareClearScroll().addScrollId(response.getScrollId()).get();
+            }
+
+            execute(bulkRequest);
+            client.admin().indices().refresh(new RefreshRequest(AUTHORS_INDEX)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Error while refreshing the author suggestions", e);
+            throw new ElasticExecutionException("Error when trying to refresh the author suggestions", e);
+        }
+    }
+
+    /**
+     * Creates the search for the authors starting with the prefix, the prefix may contain a typo. Before the first
+     * refresh the index does not exist and the response has no suggestions.
+     */
+    SearchRequestBuilder prepareSuggest(String name, String prefix, int size) {
+        return client.prepareSearch(AUTHORS_INDEX)
+                .setIndicesOptions(IndicesOptions.lenientExpandOpen())
+                .suggest(new SuggestBuilder().addSuggestion(name,
+                        completionSuggestion("suggest").prefix(prefix, Fuzziness.AUTO).size(size)))
+                .setFetchSource(false)
+                .setSize(0);
+    }
+
+    private BulkRequestBuilder executeWhenFull(BulkRequestBuilder bulkRequest) {
+        if (bulkRequest.numberOfActions() < PAGE_SIZE) {
+            return bulkRequest;
+        }
+        execute(bulkRequest);
+        return client.prepareBulk();
+    }
+
+    private static void execute(BulkRequestBuilder bulkRequest) {
+        if (bulkRequest.numberOfActions() == 0) {
+            return;
+        }
+        BulkResponse bulkResponse = bulkRequest.get();
+        if (bulkResponse.hasFailures()) {
+            throw new ElasticExecutionException("Error writing the author suggestions: "
+                    + bulkResponse.buildFailureMessage());
+        }
+    }
+
+    private void createIndexIfMissing() throws InterruptedException, ExecutionException {
+        if (client.admin().indices().prepareExists(AUTHORS_INDEX).get().isExists()) {
+            return;
+        }
+        Settings settings = Settings.builder()
+                .put("number_of_shards", 1)
+                .put("number_of_replicas", 0)
+                .build();
+        CreateIndexRequest request = new CreateIndexRequest(AUTHORS_INDEX, settings);
+        request.mapping(AUTHOR_TYPE, AUTHORS_MAPPING, XContentType.JSON);
+        client.admin().indices().create(request).get();
+    }
+
+    private static Map<String, Object> toSource(TermBucket author) {
+        Map<String, Object> suggest = new HashMap<>();
+        suggest.put("input", author.getTerm());
+        suggest.put("weight", (int) Math.min(author.getDocCount(), Integer.MAX_VALUE));
+
+        Map<String, Object> source = new HashMap<>();
+        source.put("name", author.getTerm());
+        source.put("articleCount", author.getDocCount());
+        source.put("suggest", suggest);
+        return source;
+    }
+}
@@ -0,0 +1,16 @@
+package eu.luminis.elastic;
+
+/**
+ * Callback used by the {@link ArticleBulkIndexer} to report articles that could not be indexed.
+ */
+@FunctionalInterface
+public interface BulkFailureListener {
+    /**
+     * Called once for every article that failed, either because the item was rejected by the cluster or because the
+     * complete bulk request failed.
+     *
+     * @param article The article that was not indexed
+     * @param reason  Message describing the failure
+     */
+    void onFailure(Article article, String reason);
+}
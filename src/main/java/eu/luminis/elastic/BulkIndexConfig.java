@@ -0,0 +1,70 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+/**
+ * Thresholds used by the {@link ArticleBulkIndexer} to decide when a bulk request is sent to the cluster. A bulk is
+ * flushed when the first of the thresholds (number of actions, size in bytes or the flush interval) is reached.
+ */
+public class BulkIndexConfig {
+    private int bulkActions = 500;
+    private ByteSizeValue bulkSize = new ByteSizeValue(5, ByteSizeUnit.MB);
+    private TimeValue flushInterval = TimeValue.timeValueSeconds(5);
+    private int concurrentRequests = 1;
+
+    public int getBulkActions() {
+        return bulkActions;
+    }
+
+    /**
+     * @param bulkActions Number of articles after which a bulk request is sent, -1 to disable
+     * @return this config
+     */
+    public BulkIndexConfig setBulkActions(int bulkActions) {
+        this.bulkActions = bulkActions;
+        return this;
+    }
+
+    public ByteSizeValue getBulkSize() {
+        return bulkSize;
+    }
+
+    /**
+     * @param bulkSize Size of the pending request after which it is sent, -1 bytes to disable
+     * @return this config
+     */
+    public BulkIndexConfig setBulkSize(ByteSizeValue bulkSize) {
+        this.bulkSize = bulkSize;
+        return this;
+    }
+
+    public TimeValue getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * @param flushInterval Interval after which pending articles are sent regardless of the other thresholds, null to
+     *                      disable
+     * @return this config
+     */
+    public BulkIndexConfig setFlushInterval(TimeValue flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    public int getConcurrentRequests() {
+        return concurrentRequests;
+    }
+
+    /**
+     * @param concurrentRequests Number of bulk requests that can be in flight while new articles are collected, 0
+     *                           makes every flush blocking
+     * @return this config
+     */
+    public BulkIndexConfig setConcurrentRequests(int concurrentRequests) {
+        this.concurrentRequests = concurrentRequests;
+        return this;
+    }
+}
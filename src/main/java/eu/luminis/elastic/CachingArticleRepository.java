@@ -0,0 +1,191 @@
+package eu.luminis.elastic;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>Decorator for the {@link ArticleRepository} that keeps the results of the read methods in a size bounded least
+ * recently used cache. Every kind of query has its own time to live, a time to live of zero disables caching for
+ * that kind of query.</p>
+ * <p>Writes and index rebuilds done through this class invalidate the complete cache. Changes made by other
+ * processes, like a separate run of the {@link JavaMagazineReader}, become visible when the entries expire. The same
+ * holds for a query executed between indexing an article and the next refresh of the index.</p>
+ * <p>The returned lists and maps are shared between callers and can not be modified.</p>
+ */
+public class CachingArticleRepository implements ArticleSearchEngine {
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    /**
+     * Kinds of queries that can have a different time to live.
+     */
+    public enum CachedQuery {
+        AUTHORS, ISSUES, ARTICLES
+    }
+
+    private final ArticleRepository delegate;
+    private final ResultCache<List<Object>, Object> cache;
+    private final Map<CachedQuery, Long> ttlNanos = new EnumMap<>(CachedQuery.class);
+
+    /**
+     * @param delegate    Repository used to execute the queries on a cache miss
+     * @param maximumSize Maximum number of query results kept in the cache
+     */
+    public CachingArticleRepository(ArticleRepository delegate, int maximumSize) {
+        this(delegate, maximumSize, System::nanoTime);
+    }
+
+    CachingArticleRepository(ArticleRepository delegate, int maximumSize, LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.cache = new ResultCache<>(maximumSize, nanoClock);
+        for (CachedQuery query : CachedQuery.values()) {
+            ttlNanos.put(query, DEFAULT_TTL.toNanos());
+        }
+    }
+
+    /**
+     * Changes the time to live of newly cached results of the provided kind of query, the default is five minutes.
+     *
+     * @param query Kind of query
+     * @param ttl   Duration after which the result is obtained from the cluster again, zero to disable caching
+     * @return this repository
+     */
+    public CachingArticleRepository setTtl(CachedQuery query, Duration ttl) {
+        ttlNanos.put(query, ttl.toNanos());
+        return this;
+    }
+
+    /**
+     * @see ArticleRepository#findAuthors()
+     */
+    @Override
+    public Map<String, Long> findAuthors() {
+        return cached(CachedQuery.AUTHORS, () -> Collections.unmodifiableMap(delegate.findAuthors()), "authors");
+    }
+
+    /**
+     * @see ArticleRepository#findIssues()
+     */
+    @Override
+    public Map<String, Long> findIssues() {
+        return cached(CachedQuery.ISSUES, () -> Collections.unmodifiableMap(delegate.findIssues()), "issues");
+    }
+
+    /**
+     * @see ArticleRepository#searchArticlesBy(String)
+     */
+    @Override
+    public List<Article> searchArticlesBy(String searchString) {
+        return cachedArticles(() -> delegate.searchArticlesBy(searchString), "search", searchString);
+    }
+
+    /**
+     * @see ArticleRepository#findAllArticlesForIssue(String)
+     */
+    @Override
+    public List<Article> findAllArticlesForIssue(String issue) {
+        return cachedArticles(() -> delegate.findAllArticlesForIssue(issue), "issue", issue);
+    }
+
+    /**
+     * @see ArticleRepository#findAllArticlesForAuthor(String)
+     */
+    @Override
+    public List<Article> findAllArticlesForAuthor(String author) {
+        return cachedArticles(() -> delegate.findAllArticlesForAuthor(author), "author", author);
+    }
+
+    /**
+     * @see ArticleRepository#searchAndFilterIssueArticlesBy(String, String)
+     */
+    @Override
+    public List<Article> searchAndFilterIssueArticlesBy(String issue, String searchString) {
+        return cachedArticles(() -> delegate.searchAndFilterIssueArticlesBy(issue, searchString),
+                "issueSearch", issue, searchString);
+    }
+
+    /**
+     * @see ArticleRepository#searchAndFilterAuthorArticlesBy(String, String)
+     */
+    @Override
+    public List<Article> searchAndFilterAuthorArticlesBy(String author, String searchString) {
+        return cachedArticles(() -> delegate.searchAndFilterAuthorArticlesBy(author, searchString),
+                "authorSearch", author, searchString);
+    }
+
+    /**
+     * Indexes the article and invalidates the cache.
+     *
+     * @see ArticleRepository#indexArticle(Article)
+     */
+    @Override
+    public void indexArticle(Article article) {
+        try {
+            delegate.indexArticle(article);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Rebuilds the index and invalidates the cache once the alias points to the new index.
+     *
+     * @see ArticleRepository#rebuildIndex(Consumer)
+     */
+    public String rebuildIndex(Consumer<ArticleBulkIndexer> loader) {
+        try {
+            return delegate.rebuildIndex(loader);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Moves the alias and invalidates the cache.
+     *
+     * @see ArticleRepository#switchAlias(String)
+     */
+    public void switchAlias(String indexName) {
+        try {
+            delegate.switchAlias(indexName);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return Map with the number of hits, misses, evictions, expirations and the current size of the cache
+     */
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("hits", cache.getHitCount());
+        statistics.put("misses", cache.getMissCount());
+        statistics.put("evictions", cache.getEvictionCount());
+        statistics.put("expirations", cache.getExpirationCount());
+        statistics.put("size", (long) cache.size());
+        return statistics;
+    }
+
+    private List<Article> cachedArticles(Supplier<List<Article>> loader, Object... key) {
+        return cached(CachedQuery.ARTICLES, () -> Collections.unmodifiableList(loader.get()), key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(CachedQuery query, Supplier<T> loader, Object... key) {
+        return (T) cache.get(Arrays.asList(key), ttlNanos.get(query), (Supplier<Object>) loader);
+    }
+}
@@ -0,0 +1,94 @@
+package eu.luminis.elastic;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * <p>Fetches the pages from the nljug website and stores the html in a {@link PageCache}. Pages that are in the cache
+ * are requested using If-None-Match and If-Modified-Since, when the website answers with 304 Not Modified the cached
+ * html is used.</p>
+ * <p>In offline mode the website is never contacted, all pages are read from the cache. This replays an earlier crawl,
+ * for instance to parse the articles again after a change to the mapping, or to run the tests with a fixed set of
+ * pages.</p>
+ */
+public class CachingPageFetcher implements PageFetcher {
+    private static final Logger logger = LogManager.getLogger(CachingPageFetcher.class);
+
+    private final PageCache pageCache;
+    private final String baseUrl;
+    private boolean offline = false;
+
+    public CachingPageFetcher(Path cacheDirectory) {
+        this(new PageCache(cacheDirectory), JsoupPageFetcher.BASE_URL);
+    }
+
+    CachingPageFetcher(PageCache pageCache, String baseUrl) {
+        this.pageCache = pageCache;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * @param offline true to read all pages from the cache without contacting the website
+     * @return this fetcher
+     */
+    public CachingPageFetcher setOffline(boolean offline) {
+        this.offline = offline;
+        return this;
+    }
+
+    @Override
+    public Document fetch(int page) throws IOException {
+        String url = baseUrl + page;
+        Optional<PageCache.CachedPage> cached = pageCache.get(url);
+        if (offline) {
+            return parse(cached.orElseThrow(() -> new FileNotFoundException("No cached page for url " + url)));
+        }
+        return parse(fetchConditional(url, cached).orElseGet(cached::get));
+    }
+
+    /**
+     * Fetches the page with a conditional request when the page is in the cache.
+     *
+     * @return Optional with the fetched page, empty when the website answered the page is not modified
+     */
+    private Optional<PageCache.CachedPage> fetchConditional(String url, Optional<PageCache.CachedPage> cached)
+            throws IOException {
+        Connection connection = Jsoup.connect(url).ignoreHttpErrors(true).maxBodySize(0);
+        cached.ifPresent(cachedPage -> {
+            if (cachedPage.getETag() != null) {
+                connection.header("If-None-Match", cachedPage.getETag());
+            }
+            if (cachedPage.getLastModified() != null) {
+                connection.header("If-Modified-Since", cachedPage.getLastModified());
+            }
+        });
+
+        Connection.Response response = connection.execute();
+        if (response.statusCode() == 304 && cached.isPresent()) {
+            logger.debug("Page {} not modified, using the cached page", url);
+            return Optional.empty();
+        }
+        if (response.statusCode() != 200) {
+            throw new HttpStatusException("Could not fetch page", response.statusCode(), url);
+        }
+
+        PageCache.CachedPage fetched = new PageCache.CachedPage(url, response.bodyAsBytes(), response.charset(),
+                response.header("ETag"), response.header("Last-Modified"));
+        pageCache.put(fetched);
+        return Optional.of(fetched);
+    }
+
+    private static Document parse(PageCache.CachedPage page) throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(page.getHtml()), page.getCharset(), page.getUrl());
+    }
+}
@@ -2,11 +2,13 @@ package eu.luminis.elastic;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.transport.TransportClient;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.transport.client.PreBuiltTransportClient;
 
 import java.net.InetAddress;
@@ -15,17 +17,27 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * <p>Class that maintains a singleton elastic client.</p>
- * <p>BEWARE: This class is not meant to be a thread safe singleton implementation.</p>
+ * <p>Class that maintains a singleton elastic client. The client is created lazily by the first call to
+ * {@link #obtainClient()}, concurrent callers all receive the same client.</p>
+ * <p>The settings of the client must be configured before the client is obtained. After creating the client the
+ * factory checks that the cluster can be reached. Close the factory to release the threads and connections of the
+ * client, closing more than once has no effect.</p>
  */
-public class ElasticClientFactory {
+public class ElasticClientFactory implements AutoCloseable {
     private static final Logger logger = LogManager.getLogger(ElasticClientFactory.class);
     private static final int DEFAULT_ELASITCSEARCH_PORT = 9300;
 
-    private Client client;
+    private volatile TransportClient client;
+    private volatile boolean closed;
     private final String clusterName;
     private final String unicastHosts;
 
+    private boolean sniff = true;
+    private TimeValue pingTimeout = TimeValue.timeValueSeconds(5);
+    private TimeValue nodesSamplerInterval = TimeValue.timeValueSeconds(5);
+    private int connectionsPerNode = 6;
+    private boolean verifyConnection = true;
+
     /**
      * Create the factory to maintain an elasticsearch client. The name of the cluster to connect to as well as the hosts
      * are mandatory. Valid format for the hosts is:
@@ -39,24 +51,95 @@ public class ElasticClientFactory {
         this.unicastHosts = unicastHosts;
     }
 
+    /**
+     * @param sniff When true the client discovers the other data nodes of the cluster, default is true
+     * @return this factory
+     */
+    public ElasticClientFactory setSniff(boolean sniff) {
+        this.sniff = sniff;
+        return this;
+    }
+
+    /**
+     * @param pingTimeout Time to wait for a ping response from a node before it is considered unavailable
+     * @return this factory
+     */
+    public ElasticClientFactory setPingTimeout(TimeValue pingTimeout) {
+        this.pingTimeout = pingTimeout;
+        return this;
+    }
+
+    /**
+     * @param nodesSamplerInterval Interval for sampling the connected nodes and refreshing the list of nodes
+     * @return this factory
+     */
+    public ElasticClientFactory setNodesSamplerInterval(TimeValue nodesSamplerInterval) {
+        this.nodesSamplerInterval = nodesSamplerInterval;
+        return this;
+    }
+
+    /**
+     * @param connectionsPerNode Number of connections to each node used for searching and indexing
+     * @return this factory
+     */
+    public ElasticClientFactory setConnectionsPerNode(int connectionsPerNode) {
+        this.connectionsPerNode = connectionsPerNode;
+        return this;
+    }
+
+    /**
+     * @param verifyConnection When true the cluster health is requested after creating the client, default is true
+     * @return this factory
+     */
+    public ElasticClientFactory setVerifyConnection(boolean verifyConnection) {
+        this.verifyConnection = verifyConnection;
+        return this;
+    }
+
     /**
      * Return the created Client object, if not available yet create it.
      *
      * @return Client object
+     * @throws ElasticConfigException when the factory is closed or the cluster can not be reached
      */
     public Client obtainClient() {
-        // Beware, not a thread safe solution.
-        if (this.client == null) {
-            logger.info("Create a new elasticsearch client");
-            this.client = createClient();
+        TransportClient current = this.client;
+        if (current == null) {
+            synchronized (this) {
+                current = this.client;
+                if (current == null) {
+                    if (closed) {
+                        throw new ElasticConfigException("The elasticsearch client factory is closed");
+                    }
+                    logger.info("Create a new elasticsearch client");
+                    current = createClient();
+                    this.client = current;
+                }
+            }
         }
+        return current;
+    }
 
-        return this.client;
+    /**
+     * Closes the client if it was created. Obtaining a client afterwards results in an exception.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (this.client != null) {
+            logger.info("Close the elasticsearch client");
+            this.client.close();
+            this.client = null;
+        }
     }
 
-    private Client createClient() {
+    private TransportClient createClient() {
         Settings settings = Settings.builder()
                 .put("cluster.name", clusterName)
+                .put("client.transport.sniff", sniff)
+                .put("client.transport.ping_timeout", pingTimeout)
+                .put("client.transport.nodes_sampler_interval", nodesSamplerInterval)
+                .put("transport.connections_per_node.reg", connectionsPerNode)
                 .build();
 
         TransportClient client = new PreBuiltTransportClient(settings);
@@ -64,13 +147,32 @@ public class ElasticClientFactory {
         try {
             client.addTransportAddresses(getTransportAddresses(unicastHosts));
         } catch (UnknownHostException e) {
+            client.close();
             logger.error("Problem while creating a client for elasticsearch", e);
             throw new ElasticConfigException("Could not create elasticsearch client");
         }
 
+        if (verifyConnection) {
+            verifyConnection(client);
+        }
+
         return client;
     }
 
+    private void verifyConnection(TransportClient client) {
+        try {
+            if (client.connectedNodes().isEmpty()) {
+                throw new ElasticConfigException("None of the hosts " + unicastHosts + " is available");
+            }
+            ClusterHealthStatus status = client.admin().cluster().prepareHealth().get().getStatus();
+            logger.info("Connected to cluster {} with status {}", clusterName, status);
+        } catch (RuntimeException e) {
+            client.close();
+            logger.error("Problem while connecting to elasticsearch", e);
+            throw new ElasticConfigException("Could not connect to elasticsearch cluster " + clusterName, e);
+        }
+    }
+
     private TransportAddress[] getTransportAddresses(String unicastHosts) throws UnknownHostException {
         List<TransportAddress> transportAddresses = new ArrayList<TransportAddress>();
 
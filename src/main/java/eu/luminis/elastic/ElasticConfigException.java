@@ -7,4 +7,8 @@ public class ElasticConfigException extends RuntimeException {
     public ElasticConfigException(String message) {
         super(message);
     }
+
+    public ElasticConfigException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -7,4 +7,8 @@ public class ElasticExecutionException extends RuntimeException {
     public ElasticExecutionException(String s) {
         super(s);
     }
+
+    public ElasticExecutionException(String s, Throwable cause) {
+        super(s, cause);
+    }
 }
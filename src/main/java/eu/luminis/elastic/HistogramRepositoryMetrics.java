@@ -0,0 +1,168 @@
+package eu.luminis.elastic;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Keeps latency histograms and counters per repository method. Two latencies are recorded for every request: the
+ * time the cluster reported for executing it and the wall clock time on the client. The difference is the time spent
+ * on the network and on converting the response.</p>
+ * <p>When exported, every method is registered as an MXBean with the name
+ * <em>eu.luminis.elastic:type=RepositoryMetrics,method=[method]</em>.</p>
+ */
+public class HistogramRepositoryMetrics implements RepositoryMetrics {
+    private static final Logger logger = LogManager.getLogger(HistogramRepositoryMetrics.class);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final boolean exportToJmx;
+
+    public HistogramRepositoryMetrics() {
+        this(false);
+    }
+
+    /**
+     * @param exportToJmx When true the metrics of every method are registered with the platform MBean server
+     */
+    public HistogramRepositoryMetrics(boolean exportToJmx) {
+        this.exportToJmx = exportToJmx;
+    }
+
+    @Override
+    public void recordRequest(String method, long serverTookMillis, long clientNanos, long totalHits) {
+        MethodMetrics metrics = metricsFor(method);
+        metrics.requests.increment();
+        metrics.hits.add(totalHits);
+        metrics.clientLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(clientNanos));
+        if (serverTookMillis >= 0) {
+            metrics.serverLatency.recordValue(TimeUnit.MILLISECONDS.toMicros(serverTookMillis));
+        }
+    }
+
+    @Override
+    public void recordError(String method) {
+        metricsFor(method).errors.increment();
+    }
+
+    /**
+     * @return Map with the metrics of all methods that executed at least one request
+     */
+    public Map<String, MethodMetricsMXBean> getMethodMetrics() {
+        return Collections.unmodifiableMap(methods);
+    }
+
+    private MethodMetrics metricsFor(String method) {
+        MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method, name -> {
+                MethodMetrics created = new MethodMetrics();
+                if (exportToJmx) {
+                    register(name, created);
+                }
+                return created;
+            });
+        }
+        return metrics;
+    }
+
+    private void register(String method, MethodMetrics metrics) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("eu.luminis.elastic:type=RepositoryMetrics,method=" + method);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(metrics, objectName);
+        } catch (JMException e) {
+            logger.warn("Could not export the metrics of " + method + " to JMX", e);
+        }
+    }
+
+    private static class MethodMetrics implements MethodMetricsMXBean {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final Histogram clientLatency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final Histogram serverLatency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+        @Override
+        public long getRequestCount() {
+            return requests.sum();
+        }
+
+        @Override
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        @Override
+        public long getTotalHits() {
+            return hits.sum();
+        }
+
+        @Override
+        public double getClientLatencyP50() {
+            return percentileMillis(clientLatency, 50);
+        }
+
+        @Override
+        public double getClientLatencyP99() {
+            return percentileMillis(clientLatency, 99);
+        }
+
+        @Override
+        public double getClientLatencyP999() {
+            return percentileMillis(clientLatency, 99.9);
+        }
+
+        @Override
+        public double getClientLatencyMax() {
+            return clientLatency.getMaxValue() / 1000.0;
+        }
+
+        @Override
+        public double getServerLatencyP50() {
+            return percentileMillis(serverLatency, 50);
+        }
+
+        @Override
+        public double getServerLatencyP99() {
+            return percentileMillis(serverLatency, 99);
+        }
+
+        @Override
+        public double getServerLatencyP999() {
+            return percentileMillis(serverLatency, 99.9);
+        }
+
+        @Override
+        public double getServerLatencyMax() {
+            return serverLatency.getMaxValue() / 1000.0;
+        }
+
+        @Override
+        public void reset() {
+            requests.reset();
+            errors.reset();
+            hits.reset();
+            clientLatency.reset();
+            serverLatency.reset();
+        }
+
+        private static double percentileMillis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
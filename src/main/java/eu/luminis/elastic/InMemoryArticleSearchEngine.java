@@ -0,0 +1,305 @@
+package eu.luminis.elastic;
+
+import org.apache.lucene.util.SmallFloat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Search engine keeping all articles in memory, for small corpora, tests and deployments without a cluster. The
+ * title and description are kept in an inverted index and scored with BM25 using the same formula, parameters and
+ * field length encoding as Lucene, the author and issue are kept as keyword postings. Queries mirror
+ * {@link ArticleRepository}: the text is searched in both fields and the best field counts, authors and issues are
+ * filters, articles with equal scores are returned in the order they were indexed.</p>
+ * <p>Text is split on everything that is not a letter or digit and lower cased, which is close to the standard
+ * analyzer of elasticsearch. The articles are stored as provided, do not change them after indexing. The engine is
+ * thread safe, searches run in parallel and indexing blocks searches.</p>
+ */
+public class InMemoryArticleSearchEngine implements ArticleSearchEngine {
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int TERMS_SIZE = 10;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final float[] NORM_TABLE = new float[256];
+
+    static {
+        for (int i = 1; i < 256; i++) {
+            float f = SmallFloat.byte315ToFloat((byte) i);
+            NORM_TABLE[i] = 1.0f / (f * f);
+        }
+        NORM_TABLE[0] = 1.0f / NORM_TABLE[255];
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Article> documents = new ArrayList<>();
+    private final BitSet liveDocs = new BitSet();
+    private final Map<String, Integer> docsByLink = new HashMap<>();
+    private final TextField title = new TextField(Article::getTitle);
+    private final TextField description = new TextField(Article::getDescription);
+    private final KeywordField author = new KeywordField(Article::getAuthor);
+    private final KeywordField issue = new KeywordField(Article::getIssue);
+
+    @Override
+    public void indexArticle(Article article) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = article.getLink() == null ? null : docsByLink.get(article.getLink());
+            if (existing != null) {
+                Article old = documents.get(existing);
+                title.remove(existing, old);
+                description.remove(existing, old);
+                author.remove(existing, old);
+                issue.remove(existing, old);
+                liveDocs.clear(existing);
+                documents.set(existing, null);
+            }
+
+            int doc = documents.size();
+            documents.add(article);
+            liveDocs.set(doc);
+            if (article.getLink() != null) {
+                docsByLink.put(article.getLink(), doc);
+            }
+            title.add(doc, article);
+            description.add(doc, article);
+            author.add(doc, article);
+            issue.add(doc, article);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Article> searchArticlesBy(String searchString) {
+        return search(searchString, null, null, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @see ArticleRepository#searchArticlesBy(String, int, int)
+     */
+    public List<Article> searchArticlesBy(String searchString, int from, int size) {
+        return search(searchString, null, null, from, size);
+    }
+
+    @Override
+    public List<Article> findAllArticlesForIssue(String issue) {
+        return search(null, this.issue, issue, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    @Override
+    public List<Article> findAllArticlesForAuthor(String author) {
+        return search(null, this.author, author, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    @Override
+    public List<Article> searchAndFilterIssueArticlesBy(String issue, String searchString) {
+        return search(searchString, optionalFilter(this.issue, issue), issue, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    @Override
+    public List<Article> searchAndFilterAuthorArticlesBy(String author, String searchString) {
+        return search(searchString, optionalFilter(this.author, author), author, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    @Override
+    public Map<String, Long> findIssues() {
+        return termCounts(issue);
+    }
+
+    @Override
+    public Map<String, Long> findAuthors() {
+        return termCounts(author);
+    }
+
+    /**
+     * Like the search and filter methods of the repository an empty value leaves out the filter, the find all methods
+     * always filter and an empty value matches no articles.
+     */
+    private static KeywordField optionalFilter(KeywordField field, String value) {
+        return value == null || value.isEmpty() ? null : field;
+    }
+
+    private List<Article> search(String searchString, KeywordField filterField, String filterValue, int from, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = (BitSet) liveDocs.clone();
+            if (filterField != null) {
+                candidates.and(filterField.postings.getOrDefault(filterValue, new BitSet()));
+            }
+
+            List<ScoredDoc> hits = new ArrayList<>();
+            if (searchString == null || searchString.isEmpty()) {
+                candidates.stream().forEach(doc -> hits.add(new ScoredDoc(doc, 1.0f)));
+            } else {
+                // A search string without tokens matches nothing, like multi_match
+                List<String> queryTerms = analyze(searchString);
+                Map<Integer, Float> titleScores = title.score(queryTerms, candidates);
+                Map<Integer, Float> descriptionScores = description.score(queryTerms, candidates);
+                Map<Integer, Float> scores = new HashMap<>(titleScores);
+                descriptionScores.forEach((doc, score) -> scores.merge(doc, score, Math::max));
+                scores.forEach((doc, score) -> hits.add(new ScoredDoc(doc, score)));
+            }
+
+            return hits.stream()
+                    .sorted(Comparator.comparingDouble((ScoredDoc hit) -> hit.score).reversed()
+                            .thenComparingInt(hit -> hit.doc))
+                    .skip(from)
+                    .limit(size)
+                    .map(hit -> documents.get(hit.doc))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Long> termCounts(KeywordField field) {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            field.postings.entrySet().stream()
+                    .filter(entry -> !entry.getValue().isEmpty())
+                    .sorted(Comparator.comparingInt((Map.Entry<String, BitSet> entry) -> entry.getValue().cardinality())
+                            .reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(TERMS_SIZE)
+                    .forEach(entry -> counts.put(entry.getKey(), (long) entry.getValue().cardinality()));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> analyze(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static class ScoredDoc {
+        private final int doc;
+        private final float score;
+
+        private ScoredDoc(int doc, float score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Analyzed field with the term frequencies per document and the encoded field length used by BM25.
+     */
+    private static class TextField {
+        private final Function<Article, String> value;
+        private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+        private final Map<Integer, Byte> norms = new HashMap<>();
+        private final Map<Integer, Integer> lengths = new HashMap<>();
+        private long sumTotalTermFreq;
+
+        private TextField(Function<Article, String> value) {
+            this.value = value;
+        }
+
+        private void add(int doc, Article article) {
+            List<String> tokens = analyze(value.apply(article));
+            if (tokens.isEmpty()) {
+                return;
+            }
+            tokens.forEach(token -> postings.computeIfAbsent(token, key -> new HashMap<>()).merge(doc, 1, Integer::sum));
+            norms.put(doc, SmallFloat.floatToByte315((float) (1 / Math.sqrt(tokens.size()))));
+            lengths.put(doc, tokens.size());
+            sumTotalTermFreq += tokens.size();
+        }
+
+        private void remove(int doc, Article article) {
+            for (String token : analyze(value.apply(article))) {
+                Map<Integer, Integer> docs = postings.get(token);
+                if (docs != null && docs.remove(doc) != null && docs.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+            norms.remove(doc);
+            Integer length = lengths.remove(doc);
+            if (length != null) {
+                sumTotalTermFreq -= length;
+            }
+        }
+
+        /**
+         * Sums the BM25 score of every query term, like the should clauses of a match query.
+         */
+        private Map<Integer, Float> score(List<String> queryTerms, BitSet candidates) {
+            Map<Integer, Float> scores = new HashMap<>();
+            int docCount = lengths.size();
+            if (docCount == 0) {
+                return scores;
+            }
+            float avgFieldLength = (float) (sumTotalTermFreq / (double) docCount);
+
+            for (String term : queryTerms) {
+                Map<Integer, Integer> docs = postings.get(term);
+                if (docs == null) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (docCount - docs.size() + 0.5D) / (docs.size() + 0.5D));
+                float weight = idf * (K1 + 1);
+                docs.forEach((doc, freq) -> {
+                    if (candidates.get(doc)) {
+                        float fieldLength = NORM_TABLE[norms.get(doc) & 0xFF];
+                        float lengthNorm = K1 * ((1 - B) + B * fieldLength / avgFieldLength);
+                        scores.merge(doc, weight * freq / (freq + lengthNorm), Float::sum);
+                    }
+                });
+            }
+            return scores;
+        }
+    }
+
+    /**
+     * Not analyzed field with the documents per value.
+     */
+    private static class KeywordField {
+        private final Function<Article, String> value;
+        private final Map<String, BitSet> postings = new HashMap<>();
+
+        private KeywordField(Function<Article, String> value) {
+            this.value = value;
+        }
+
+        private void add(int doc, Article article) {
+            String term = value.apply(article);
+            if (term != null) {
+                postings.computeIfAbsent(term, key -> new BitSet()).set(doc);
+            }
+        }
+
+        private void remove(int doc, Article article) {
+            String term = value.apply(article);
+            if (term != null && postings.containsKey(term)) {
+                postings.get(term).clear(doc);
+                if (postings.get(term).isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package eu.luminis.elastic;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Reads the overview pages starting with the newest one and only writes the articles that are new or changed
+ * since the previous crawl. Articles are identified by their link and compared using the content hash that is
+ * stored with every article.</p>
+ * <p>The overview pages are ordered by date, the crawl therefore stops at the first page that contains only
+ * known and unchanged articles, or at a page without articles. Only the index decides whether an article is known,
+ * a page that did not change since the previous fetch is still compared with the index, because the index may have
+ * been recreated or an earlier upsert may have failed. A caching {@link PageFetcher} still saves the download of
+ * unchanged pages. The articles are written to the index the alias articles points to using upserts, the existing
+ * index is kept. When articles were written the rollup with the number of articles per period is refreshed.</p>
+ */
+public class IncrementalCrawler {
+    private static final Logger logger = LogManager.getLogger(IncrementalCrawler.class);
+
+    private final JavaMagazineReader reader;
+    private final ArticleRepository articleRepository;
+    private int maxPages = 100;
+
+    public IncrementalCrawler(JavaMagazineReader reader, ArticleRepository articleRepository) {
+        this.reader = reader;
+        this.articleRepository = articleRepository;
+    }
+
+    /**
+     * @param maxPages Maximum number of pages to read, protects against a site that keeps returning articles
+     * @return this crawler
+     */
+    public IncrementalCrawler setMaxPages(int maxPages) {
+        this.maxPages = maxPages;
+        return this;
+    }
+
+    /**
+     * Reads pages until a page does not contain new or changed articles and upserts the articles that are new or
+     * changed. Upserts that fail are logged and counted as failed instead of written. The rollup is refreshed when
+     * articles were written, a failing refresh is logged and does not fail the crawl.
+     *
+     * @return CrawlResult with the number of pages read, articles written and articles that could not be written
+     */
+    public CrawlResult crawl() {
+        CrawlResult result = new CrawlResult();
+        ArticleBulkIndexer bulkIndexer = articleRepository.createBulkIndexer();
+        try (ArticleBulkIndexer closingIndexer = bulkIndexer) {
+            for (int page = 1; page <= maxPages; page++) {
+                List<Article> articles = readPage(page);
+                result.pagesRead++;
+                if (articles.isEmpty()) {
+                    logger.info("Page {} does not contain articles, stop crawling", page);
+                    break;
+                }
+
+                Map<String, String> storedHashes = articleRepository.findContentHashes(
+                        articles.stream().map(Article::getLink).collect(Collectors.toList()));
+                List<Article> changed = articles.stream()
+                        .filter(article -> !article.getContentHash().equals(storedHashes.get(article.getLink())))
+                        .collect(Collectors.toList());
+
+                changed.forEach(closingIndexer::upsert);
+                result.upsertedCount += changed.size();
+                result.unchangedCount += articles.size() - changed.size();
+
+                if (changed.isEmpty()) {
+                    logger.info("Page {} only contains known articles, stop crawling", page);
+                    break;
+                }
+            }
+        }
+        // Only known after closing, when all bulk requests finished
+        result.failedCount = (int) bulkIndexer.getFailedCount();
+        result.upsertedCount -= result.failedCount;
+        if (result.upsertedCount > 0) {
+            articleRepository.refreshRollupAfterIndexing();
+        }
+        return result;
+    }
+
+    private List<Article> readPage(int page) {
+        try {
+            return reader.startReading(page);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while reading page " + page, e);
+        }
+    }
+
+    /**
+     * Counts of a single incremental crawl.
+     */
+    public static class CrawlResult {
+        private int pagesRead;
+        private int upsertedCount;
+        private int unchangedCount;
+        private int failedCount;
+
+        public int getPagesRead() {
+            return pagesRead;
+        }
+
+        public int getUpsertedCount() {
+            return upsertedCount;
+        }
+
+        public int getUnchangedCount() {
+            return unchangedCount;
+        }
+
+        /**
+         * @return Number of new or changed articles that could not be written
+         */
+        public int getFailedCount() {
+            return failedCount;
+        }
+    }
+}
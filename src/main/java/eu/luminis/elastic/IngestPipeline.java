@@ -0,0 +1,201 @@
+package eu.luminis.elastic;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.nodes.Document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * <p>Reads the articles using three stages that run at the same time: fetching pages, parsing the pages into articles
+ * and handing the articles to the indexer. The stages are connected by bounded queues, a slow stage therefore blocks
+ * the stages in front of it instead of filling up the heap.</p>
+ * <p>Fetching is done by a pool of threads using the provided {@link PageFetcher}, parsing by a pool of workers sized
+ * to the number of processors. All articles are passed to the sink from the thread calling
+ * {@link #ingest(int, int)}, so the sink does not have to be thread safe. The sink is usually an
+ * {@link ArticleBulkIndexer} that sends the articles in batches.</p>
+ */
+public class IngestPipeline {
+    private static final Logger logger = LogManager.getLogger(IngestPipeline.class);
+    private static final FetchedPage END_OF_PAGES = new FetchedPage(-1, null);
+    private static final List<Article> END_OF_ARTICLES = new ArrayList<>();
+
+    private final PageFetcher pageFetcher;
+    private final JavaMagazineReader reader;
+    private int fetchThreads = 4;
+    private int parseThreads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 8;
+
+    public IngestPipeline(PageFetcher pageFetcher) {
+        this.pageFetcher = pageFetcher;
+        this.reader = new JavaMagazineReader(pageFetcher);
+    }
+
+    public IngestPipeline setFetchThreads(int fetchThreads) {
+        this.fetchThreads = fetchThreads;
+        return this;
+    }
+
+    public IngestPipeline setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+        return this;
+    }
+
+    /**
+     * @param queueCapacity Maximum number of pages waiting between the stages
+     * @return this pipeline
+     */
+    public IngestPipeline setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Fetches and parses the pages in the provided range and passes all found articles to the sink. Pages that could
+     * not be fetched or parsed are logged and reported in the result, the other pages are still processed.
+     *
+     * @param firstPage Number of the first page to read
+     * @param lastPage  Number of the last page to read (inclusive)
+     * @param sink      Consumer receiving the articles, called from the current thread only
+     * @return IngestResult with the number of articles and the pages that failed
+     */
+    public IngestResult ingest(int firstPage, int lastPage, Consumer<Article> sink) {
+        BlockingQueue<FetchedPage> pages = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<Article>> articles = new ArrayBlockingQueue<>(queueCapacity);
+        List<Integer> failedPages = Collections.synchronizedList(new ArrayList<>());
+
+        AtomicInteger nextPage = new AtomicInteger(firstPage);
+        AtomicInteger runningFetchers = new AtomicInteger(fetchThreads);
+        AtomicInteger runningParsers = new AtomicInteger(parseThreads);
+
+        ExecutorService fetchPool = Executors.newFixedThreadPool(fetchThreads);
+        ExecutorService parsePool = Executors.newFixedThreadPool(parseThreads);
+        try {
+            for (int i = 0; i < fetchThreads; i++) {
+                fetchPool.execute(() -> runFetcher(nextPage, lastPage, pages, failedPages, runningFetchers));
+            }
+            for (int i = 0; i < parseThreads; i++) {
+                parsePool.execute(() -> runParser(pages, articles, failedPages, runningParsers));
+            }
+
+            long articleCount = 0;
+            List<Article> batch;
+            while ((batch = articles.take()) != END_OF_ARTICLES) {
+                batch.forEach(sink);
+                articleCount += batch.size();
+            }
+
+            List<Integer> failed = new ArrayList<>(failedPages);
+            Collections.sort(failed);
+            return new IngestResult(articleCount, failed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticExecutionException("Interrupted while ingesting articles");
+        } finally {
+            fetchPool.shutdownNow();
+            parsePool.shutdownNow();
+        }
+    }
+
+    private void runFetcher(AtomicInteger nextPage, int lastPage, BlockingQueue<FetchedPage> pages,
+                            List<Integer> failedPages, AtomicInteger runningFetchers) {
+        try {
+            int page;
+            while ((page = nextPage.getAndIncrement()) <= lastPage) {
+                Document document;
+                try {
+                    logger.info("Fetch page {}", page);
+                    document = pageFetcher.fetch(page);
+                } catch (Throwable e) {
+                    logger.error("Error fetching page " + page, e);
+                    failedPages.add(page);
+                    continue;
+                }
+                pages.put(new FetchedPage(page, document));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // The parsers wait for an end marker each, also when this fetcher stopped unexpectedly
+            if (runningFetchers.decrementAndGet() == 0) {
+                for (int i = 0; i < parseThreads; i++) {
+                    putEndMarker(pages, END_OF_PAGES);
+                }
+            }
+        }
+    }
+
+    private void runParser(BlockingQueue<FetchedPage> pages, BlockingQueue<List<Article>> articles,
+                           List<Integer> failedPages, AtomicInteger runningParsers) {
+        try {
+            FetchedPage fetchedPage;
+            while ((fetchedPage = pages.take()) != END_OF_PAGES) {
+                List<Article> parsedArticles;
+                try {
+                    parsedArticles = reader.parseArticles(fetchedPage.document);
+                } catch (Throwable e) {
+                    logger.error("Error parsing page " + fetchedPage.page, e);
+                    failedPages.add(fetchedPage.page);
+                    continue;
+                }
+                articles.put(parsedArticles);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // The calling thread waits for the end marker, also when this parser stopped unexpectedly
+            if (runningParsers.decrementAndGet() == 0) {
+                putEndMarker(articles, END_OF_ARTICLES);
+            }
+        }
+    }
+
+    private static <T> void putEndMarker(BlockingQueue<T> queue, T endMarker) {
+        try {
+            queue.put(endMarker);
+        } catch (InterruptedException e) {
+            // Only interrupted when the pipeline is shut down, nobody waits for the marker anymore
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class FetchedPage {
+        private final int page;
+        private final Document document;
+
+        private FetchedPage(int page, Document document) {
+            this.page = page;
+            this.document = document;
+        }
+    }
+
+    /**
+     * Outcome of running the pipeline.
+     */
+    public static class IngestResult {
+        private final long articleCount;
+        private final List<Integer> failedPages;
+
+        IngestResult(long articleCount, List<Integer> failedPages) {
+            this.articleCount = articleCount;
+            this.failedPages = failedPages;
+        }
+
+        public long getArticleCount() {
+            return articleCount;
+        }
+
+        public List<Integer> getFailedPages() {
+            return failedPages;
+        }
+    }
+}
@@ -1,19 +1,13 @@
 package eu.luminis.elastic;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Date;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 import static eu.luminis.elastic.Constants.CLUSTER_NAME;
 import static eu.luminis.elastic.Constants.HOSTS;
@@ -22,7 +16,19 @@ import static eu.luminis.elastic.Constants.HOSTS;
  * Responsibility for this class is to read the Java Magazine Articles.
  */
 public class JavaMagazineReader {
-    private final static Locale NL = Locale.forLanguageTag("nl-NL");
+    private final static ArticleParser ARTICLE_PARSER = new ArticleParser();
+    private final static String PAGE_CACHE_DIRECTORY = "page-cache";
+    private final static int SNAPSHOT_SLICES = 2;
+
+    private final PageFetcher pageFetcher;
+
+    public JavaMagazineReader() {
+        this(new JsoupPageFetcher());
+    }
+
+    public JavaMagazineReader(PageFetcher pageFetcher) {
+        this.pageFetcher = pageFetcher;
+    }
 
     /**
      * Obtain all articles extracted from the provided page number.
@@ -32,61 +38,95 @@ public class JavaMagazineReader {
      * @throws IOException Thrown when reading or parsing the page went wrong
      */
     public List<Article> startReading(int page) throws IOException {
-        Document doc = Jsoup.connect("http://www.nljug.org/databasejava/?page=" + page).get();
-        Elements articlesElement = doc.select("li.databasejava");
-
-        List<Article> articles = articlesElement.stream().map(element -> {
-            String title = element.select("article").first().select("h3").text();
-            Element headerLink = element.select("header").first().select("a").first();
-            String link = headerLink.attr("href");
-
-            Element meta = element.select("div.meta").first();
-            Elements spans = meta.select("span");
-            String author = spans.get(0).select("a").text();
-            String issue = "unknown";
-            if (spans.size() > 1) {
-                issue = spans.get(1).select("a").text();
-            }
-            String time = meta.select("time").first().text();
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMMM yyyy", NL);
-
-
-            LocalDate localDate = LocalDate.parse(time, formatter);
-            Date postDate = Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
-
-            String description = element.getElementsByAttributeValue("itemprop", "description").first().text();
-
-
-            return new Article().setTitle(title).setAuthor(author).setIssue(issue).setPostDate(postDate).setLink(link).setDescription(description);
-        }).collect(Collectors.toCollection(ArrayList::new));
-
-        return articles;
+        return parseArticles(pageFetcher.fetch(page));
     }
 
     /**
-     * First removes all "article-*" indexes, than creates the new index articles-[timestamp] as well as an alias articles
-     * to the same index. Next it parses the nljug java magazine website to obtain all available articles and stores them
-     * into elasticsearch.
+     * Extract all articles from the provided html document of an overview page.
      *
-     * @param args None are used.
-     * @throws IOException Thrown if the parsing gives and error.
+     * @param doc html document of the page
+     * @return List containing the found articles
      */
-    public static void main(String[] args) throws IOException {
-        ElasticClientFactory clientFactory = new ElasticClientFactory(CLUSTER_NAME, HOSTS);
-        ArticleRepository articleRepository = new ArticleRepository(clientFactory.obtainClient());
+    public List<Article> parseArticles(Document doc) {
+        return ARTICLE_PARSER.parse(doc);
+    }
 
-        articleRepository.deleteAllIndexes();
+    /**
+     * Creates the new index articles-[timestamp] next to the current index. Next it parses the nljug java magazine
+     * website to obtain all available articles and stores them into the new index using bulk requests. Pages are
+     * fetched, parsed and indexed concurrently by the {@link IngestPipeline}, pass <em>--sequential</em> to read the
+     * pages one after another. When all articles are loaded the alias articles is moved to the new index and the old
+     * indexes are removed, searches keep using the old index until then. When a page or an article fails the new index
+     * is removed and the current index stays in use.
+     * Pass <em>--incremental</em> to keep the current index and only write the new and changed articles, see
+     * {@link IncrementalCrawler}.
+     * Fetched pages are stored in the directory page-cache and requested again using conditional requests, pass
+     * <em>--offline</em> to read the pages from that directory only.
+     * Pass <em>--export=[file]</em> to write the current articles to a snapshot file instead of reading the website,
+     * or <em>--import=[file]</em> to load a new index from such a file.
+     *
+     * @param args Optional <em>--sequential</em> or <em>--incremental</em>, and <em>--offline</em>, or one of
+     *             <em>--export=[file]</em> and <em>--import=[file]</em>
+     */
+    public static void main(String[] args) {
+        try (ElasticClientFactory clientFactory = new ElasticClientFactory(CLUSTER_NAME, HOSTS)) {
+            ArticleRepository articleRepository = new ArticleRepository(clientFactory.obtainClient());
+
+            List<String> arguments = Arrays.asList(args);
+            Optional<String> exportFile = argumentValue(arguments, "--export=");
+            if (exportFile.isPresent()) {
+                long count = articleRepository.exportSnapshot(Paths.get(exportFile.get()), SNAPSHOT_SLICES);
+                System.out.println("Exported " + count + " articles to " + exportFile.get());
+                return;
+            }
+            Optional<String> importFile = argumentValue(arguments, "--import=");
+            if (importFile.isPresent()) {
+                String indexName = articleRepository.importSnapshot(Paths.get(importFile.get()));
+                System.out.println("Alias articles now points to " + indexName);
+                return;
+            }
 
-        articleRepository.createIndex();
+            PageFetcher pageFetcher = new CachingPageFetcher(Paths.get(PAGE_CACHE_DIRECTORY))
+                    .setOffline(arguments.contains("--offline"));
 
-        int numPages = 23;
-        JavaMagazineReader reader = new JavaMagazineReader();
+            if (arguments.contains("--incremental")) {
+                IncrementalCrawler.CrawlResult result = new IncrementalCrawler(new JavaMagazineReader(pageFetcher), articleRepository)
+                        .crawl();
+                System.out.println("Read " + result.getPagesRead() + " pages, wrote " + result.getUpsertedCount()
+                        + " new or changed articles, skipped " + result.getUnchangedCount() + " unchanged articles, "
+                        + result.getFailedCount() + " articles could not be written");
+                return;
+            }
 
-        for (int page = 1; page <= numPages; page++) {
-            System.out.println("Start page " + page);
-            List<Article> articles = reader.startReading(page);
-            articles.forEach(articleRepository::indexArticle);
+            int numPages = 23;
+            boolean sequential = arguments.contains("--sequential");
+
+            String indexName = articleRepository.rebuildIndex(bulkIndexer -> {
+                if (sequential) {
+                    JavaMagazineReader reader = new JavaMagazineReader(pageFetcher);
+                    for (int page = 1; page <= numPages; page++) {
+                        System.out.println("Start page " + page);
+                        try {
+                            reader.startReading(page).forEach(bulkIndexer::add);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                } else {
+                    IngestPipeline.IngestResult result = new IngestPipeline(pageFetcher)
+                            .ingest(1, numPages, bulkIndexer::add);
+                    System.out.println("Read " + result.getArticleCount() + " articles, failed pages " + result.getFailedPages());
+                    bulkIndexer.reportSourceFailures(result.getFailedPages().size());
+                }
+            });
+            System.out.println("Alias articles now points to " + indexName);
         }
     }
+
+    private static Optional<String> argumentValue(List<String> arguments, String prefix) {
+        return arguments.stream()
+                .filter(argument -> argument.startsWith(prefix))
+                .map(argument -> argument.substring(prefix.length()))
+                .findFirst();
+    }
 }
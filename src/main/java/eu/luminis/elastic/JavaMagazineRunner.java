@@ -3,10 +3,16 @@ package eu.luminis.elastic;
 import org.elasticsearch.client.Client;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -25,13 +31,18 @@ public class JavaMagazineRunner {
     private static final int AUTHORS_ARTICLES = 3;
     private static final int ISSUE_ARTICLES = 4;
     private static final int SEARCH_ARTICLES = 5;
+    private static final int PAGE_SIZE = 10;
+    private static final int DEFAULT_CONCURRENCY = 8;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
 
-    private DateFormat formatter = new SimpleDateFormat("dd MMMM yyyy", NL);
+    static final DateTimeFormatter POST_DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMMM yyyy", NL);
 
+    private final BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+    private ElasticClientFactory factory;
     private ArticleRepository repository;
 
     public JavaMagazineRunner() {
-        ElasticClientFactory factory = new ElasticClientFactory(CLUSTER_NAME, HOSTS);
+        this.factory = new ElasticClientFactory(CLUSTER_NAME, HOSTS);
         Client client = factory.obtainClient();
         this.repository = new ArticleRepository(client);
     }
@@ -50,19 +61,43 @@ public class JavaMagazineRunner {
             executeAction(action);
             System.out.println();
         }
+        factory.close();
 
     }
 
     public int readOption() {
         try {
-            BufferedReader bufferRead = new BufferedReader(new InputStreamReader(System.in));
-            String line = bufferRead.readLine();
-            return Integer.parseInt(line);
+            String line = input.readLine();
+            // Stop at the end of the input instead of showing the menu forever
+            return line == null ? STOP_ACTION : Integer.parseInt(line.trim());
         } catch (IOException | NumberFormatException e) {
             return 0;
         }
     }
 
+    /**
+     * Runs the queries of the script concurrently and prints the results and a latency summary, see
+     * {@link ScriptedQueryRunner}.
+     *
+     * @param script      Path of the file containing the queries
+     * @param concurrency Maximum number of queries executed at the same time
+     */
+    public void runScript(Path script, int concurrency) {
+        PrintWriter output = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE));
+        try (BufferedReader scriptReader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+            ScriptedQueryRunner.RunSummary summary =
+                    new ScriptedQueryRunner(new AsyncArticleRepository(factory.obtainClient()), concurrency)
+                            .run(scriptReader, output);
+            output.println();
+            summary.print(output);
+        } catch (IOException e) {
+            System.out.println("Could not read the script " + script + ": " + e.getMessage());
+        } finally {
+            factory.close();
+        }
+    }
+
     public void executeAction(int action) {
         switch (action) {
             case FIND_AUTHORS:
@@ -105,31 +140,17 @@ public class JavaMagazineRunner {
     }
 
     private void printArticlesForAuthor() {
-        String author = "";
-        try {
-            System.out.println("Type the name of the author:");
-            BufferedReader bufferRead = new BufferedReader(new InputStreamReader(System.in));
-            author = bufferRead.readLine();
-        } catch (IOException | NumberFormatException e) {
-            System.out.println(e.getMessage());
-        }
-        List<Article> articles = this.repository.findAllArticlesForAuthor(author);
+        String author = readLine("Type the name of the author:");
+        List<Article> articles = this.repository.findAllArticlesForAuthor(author, 0, PAGE_SIZE, "title", "postDate");
         System.out.println(String.format("Articles for author: [%s]", author));
         articles.forEach(article -> {
-            System.out.println(String.format("%s [%s]", article.getTitle(), formatter.format(article.getPostDate())));
+            System.out.println(String.format("%s [%s]", article.getTitle(), article.getPostDate().format(POST_DATE_FORMAT)));
         });
     }
 
     private void printArticlesForIssue() {
-        String issue = "";
-        try {
-            System.out.println("Type the name of the issue:");
-            BufferedReader bufferRead = new BufferedReader(new InputStreamReader(System.in));
-            issue = bufferRead.readLine();
-        } catch (IOException | NumberFormatException e) {
-            System.out.println(e.getMessage());
-        }
-        List<Article> articles = this.repository.findAllArticlesForIssue(issue);
+        String issue = readLine("Type the name of the issue:");
+        List<Article> articles = this.repository.findAllArticlesForIssue(issue, 0, PAGE_SIZE, "title", "author");
         System.out.println(String.format("Articles for issue: [%s]", issue));
         articles.forEach(article -> {
             System.out.println(String.format("%s [%s]", article.getTitle(), article.getAuthor()));
@@ -137,24 +158,47 @@ public class JavaMagazineRunner {
     }
 
     private void printSearchForArticles() {
-        String SearchString = "";
-        try {
-            System.out.println("Enter term to search for:");
-            BufferedReader bufferRead = new BufferedReader(new InputStreamReader(System.in));
-            SearchString = bufferRead.readLine();
-        } catch (IOException | NumberFormatException e) {
-            System.out.println(e.getMessage());
-        }
-        List<Article> articles = this.repository.searchArticlesBy(SearchString);
+        String SearchString = readLine("Enter term to search for:");
+        List<Article> articles = this.repository.searchArticlesBy(SearchString, 0, PAGE_SIZE, "title", "author", "postDate");
         System.out.println(String.format("Articles for SearchString: [%s]", SearchString));
         articles.forEach(article -> {
-            System.out.println(String.format("%s [%s-%s]", article.getTitle(), article.getAuthor(), formatter.format(article.getPostDate())));
+            System.out.println(String.format("%s [%s-%s]", article.getTitle(), article.getAuthor(), article.getPostDate().format(POST_DATE_FORMAT)));
         });
     }
 
+    private String readLine(String prompt) {
+        System.out.println(prompt);
+        try {
+            String line = input.readLine();
+            return line == null ? "" : line;
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            return "";
+        }
+    }
+
+    /**
+     * Starts the interactive client, or runs a script of queries when called with <em>--batch=[file]</em>. Pass
+     * <em>--concurrency=[n]</em> to change the number of queries in flight, the default is 8.
+     *
+     * @param args Optional <em>--batch=[file]</em> and <em>--concurrency=[n]</em>
+     */
     public static void main(String[] args) {
+        String script = null;
+        int concurrency = DEFAULT_CONCURRENCY;
+        for (String arg : args) {
+            if (arg.startsWith("--batch=")) {
+                script = arg.substring("--batch=".length());
+            } else if (arg.startsWith("--concurrency=")) {
+                concurrency = Integer.parseInt(arg.substring("--concurrency=".length()));
+            }
+        }
 
         JavaMagazineRunner runner = new JavaMagazineRunner();
-        runner.start();
+        if (script != null) {
+            runner.runScript(Paths.get(script), concurrency);
+        } else {
+            runner.start();
+        }
     }
 }
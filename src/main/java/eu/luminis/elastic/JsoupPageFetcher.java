@@ -0,0 +1,18 @@
+package eu.luminis.elastic;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+
+/**
+ * Fetches the pages from the nljug website using Jsoup.
+ */
+public class JsoupPageFetcher implements PageFetcher {
+    static final String BASE_URL = "http://www.nljug.org/databasejava/?page=";
+
+    @Override
+    public Document fetch(int page) throws IOException {
+        return Jsoup.connect(BASE_URL + page).get();
+    }
+}
@@ -0,0 +1,127 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <p>Sends every search to the data node with the lowest recent latency using the preference
+ * <em>_prefer_nodes</em>. The latency per node is an exponentially weighted moving average of the searches sent to
+ * that node. A search that timed out counts as a very slow search, so the node is avoided until it is measured
+ * again. Nodes that were not measured yet are tried first, and every tenth search goes to a random node, so a node
+ * that recovered from a garbage collection or a busy period gets traffic again.</p>
+ * <p>A search that timed out is retried on the fastest other node. The data nodes are read from the cluster state
+ * and refreshed every 30 seconds.</p>
+ */
+public class LatencyAwareSearchPreference implements SearchPreference {
+    private static final String PREFER_NODES = "_prefer_nodes:";
+    private static final double SMOOTHING = 0.3;
+    private static final int EXPLORE_EVERY = 10;
+    private static final long NODE_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final double FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Supplier<List<String>> dataNodes;
+    private final Map<String, Double> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private volatile List<String> nodeIds = Collections.emptyList();
+    private volatile long nodesRefreshedAt;
+
+    public LatencyAwareSearchPreference(Client client) {
+        this(() -> {
+            List<String> ids = new ArrayList<>();
+            for (DiscoveryNode node : client.admin().cluster().prepareState().clear().setNodes(true).get()
+                    .getState().getNodes().getDataNodes().values().toArray(DiscoveryNode.class)) {
+                ids.add(node.getId());
+            }
+            return ids;
+        });
+    }
+
+    LatencyAwareSearchPreference(Supplier<List<String>> dataNodes) {
+        this.dataNodes = dataNodes;
+    }
+
+    @Override
+    public String preference() {
+        List<String> nodes = nodes();
+        if (nodes.isEmpty()) {
+            return null;
+        }
+        for (String node : nodes) {
+            if (!latencies.containsKey(node)) {
+                return PREFER_NODES + node;
+            }
+        }
+        if (requestCount.incrementAndGet() % EXPLORE_EVERY == 0) {
+            return PREFER_NODES + nodes.get(ThreadLocalRandom.current().nextInt(nodes.size()));
+        }
+        return fastestNode(nodes, null);
+    }
+
+    @Override
+    public String retryPreference(String failedPreference) {
+        return fastestNode(nodes(), nodeId(failedPreference));
+    }
+
+    @Override
+    public void onResponse(String preference, long nanos) {
+        String node = nodeId(preference);
+        if (node != null) {
+            latencies.merge(node, (double) nanos, (average, latest) -> average + SMOOTHING * (latest - average));
+        }
+    }
+
+    @Override
+    public void onFailure(String preference) {
+        String node = nodeId(preference);
+        if (node != null) {
+            latencies.merge(node, FAILURE_PENALTY_NANOS, Math::max);
+        }
+    }
+
+    /**
+     * @return Map with the node id as key and the average latency in nanoseconds as value
+     */
+    public Map<String, Double> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    private String fastestNode(List<String> nodes, String excludedNode) {
+        String fastest = null;
+        double fastestLatency = Double.MAX_VALUE;
+        for (String node : nodes) {
+            double latency = latencies.getOrDefault(node, 0.0);
+            if (!node.equals(excludedNode) && latency < fastestLatency) {
+                fastest = node;
+                fastestLatency = latency;
+            }
+        }
+        return fastest == null ? null : PREFER_NODES + fastest;
+    }
+
+    private List<String> nodes() {
+        long now = System.nanoTime();
+        if (nodesRefreshedAt == 0 || now - nodesRefreshedAt > NODE_REFRESH_NANOS) {
+            nodeIds = dataNodes.get();
+            nodesRefreshedAt = now;
+        }
+        return nodeIds;
+    }
+
+    private static String nodeId(String preference) {
+        if (preference == null || !preference.startsWith(PREFER_NODES)) {
+            return null;
+        }
+        return preference.substring(PREFER_NODES.length());
+    }
+}
@@ -0,0 +1,31 @@
+package eu.luminis.elastic;
+
+/**
+ * Statistics of one repository method as exported through JMX by the {@link HistogramRepositoryMetrics}. Latencies
+ * are in milliseconds.
+ */
+public interface MethodMetricsMXBean {
+    long getRequestCount();
+
+    long getErrorCount();
+
+    long getTotalHits();
+
+    double getClientLatencyP50();
+
+    double getClientLatencyP99();
+
+    double getClientLatencyP999();
+
+    double getClientLatencyMax();
+
+    double getServerLatencyP50();
+
+    double getServerLatencyP99();
+
+    double getServerLatencyP999();
+
+    double getServerLatencyMax();
+
+    void reset();
+}
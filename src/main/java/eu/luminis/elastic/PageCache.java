@@ -0,0 +1,146 @@
+package eu.luminis.elastic;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * <p>Stores the raw html of fetched pages on disk, keyed by the url of the page. Next to the html the cache stores the
+ * ETag and Last-Modified headers of the response, so the page can be requested again with a conditional request.</p>
+ * <p>Every url results in two files named after the encoded url, one with the html and one with the headers. Files are
+ * written to a temporary file first and then moved, different pages can be stored from different threads.</p>
+ */
+public class PageCache {
+    private static final Logger logger = LogManager.getLogger(PageCache.class);
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String CHARSET = "charset";
+
+    private final Path directory;
+
+    public PageCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the stored page for the provided url.
+     *
+     * @param url Url of the page
+     * @return Optional with the cached page, empty when the page is not in the cache
+     */
+    public Optional<CachedPage> get(String url) {
+        Path htmlFile = htmlFile(url);
+        Path metaFile = metaFile(url);
+        if (!Files.exists(htmlFile) || !Files.exists(metaFile)) {
+            return Optional.empty();
+        }
+
+        try (InputStream inputStream = Files.newInputStream(metaFile)) {
+            Properties meta = new Properties();
+            meta.load(inputStream);
+            return Optional.of(new CachedPage(url, Files.readAllBytes(htmlFile), meta.getProperty(CHARSET),
+                    meta.getProperty(ETAG), meta.getProperty(LAST_MODIFIED)));
+        } catch (IOException e) {
+            logger.warn("Could not read cached page for url " + url, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the page, replacing a page that was stored before for the same url.
+     *
+     * @param page Page to store
+     * @throws IOException Thrown when the page could not be written
+     */
+    public void put(CachedPage page) throws IOException {
+        Files.createDirectories(directory);
+
+        Properties meta = new Properties();
+        meta.setProperty("url", page.getUrl());
+        if (page.getCharset() != null) {
+            meta.setProperty(CHARSET, page.getCharset());
+        }
+        if (page.getETag() != null) {
+            meta.setProperty(ETAG, page.getETag());
+        }
+        if (page.getLastModified() != null) {
+            meta.setProperty(LAST_MODIFIED, page.getLastModified());
+        }
+
+        Path tempHtml = Files.createTempFile(directory, "page", ".tmp");
+        Files.write(tempHtml, page.getHtml());
+        Path tempMeta = Files.createTempFile(directory, "page", ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(tempMeta)) {
+            meta.store(outputStream, null);
+        }
+        Files.move(tempHtml, htmlFile(page.getUrl()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tempMeta, metaFile(page.getUrl()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path htmlFile(String url) {
+        return directory.resolve(fileName(url) + ".html");
+    }
+
+    private Path metaFile(String url) {
+        return directory.resolve(fileName(url) + ".properties");
+    }
+
+    private static String fileName(String url) {
+        try {
+            return URLEncoder.encode(url, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Raw html of a page together with the headers needed for a conditional request.
+     */
+    public static class CachedPage {
+        private final String url;
+        private final byte[] html;
+        private final String charset;
+        private final String eTag;
+        private final String lastModified;
+
+        public CachedPage(String url, byte[] html, String charset, String eTag, String lastModified) {
+            this.url = url;
+            this.html = html;
+            this.charset = charset;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public byte[] getHtml() {
+            return html;
+        }
+
+        public String getCharset() {
+            return charset;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package eu.luminis.elastic;
+
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+
+/**
+ * Obtains the html document for a page of the Java Magazine article overview. Implementations can read from the
+ * website, or from stored html files when running without a network connection.
+ */
+@FunctionalInterface
+public interface PageFetcher {
+    /**
+     * Fetch the html document for the provided page.
+     *
+     * @param page represents the number of the page to fetch
+     * @return Parsed html document of the page
+     * @throws IOException Thrown when the page could not be obtained
+     */
+    Document fetch(int page) throws IOException;
+}
@@ -0,0 +1,34 @@
+package eu.luminis.elastic;
+
+/**
+ * Receives the measurements of the requests executed by the {@link ArticleRepository}. Implementations must be thread
+ * safe, the default {@link #NOOP} implementation ignores all measurements.
+ */
+public interface RepositoryMetrics {
+    RepositoryMetrics NOOP = new RepositoryMetrics() {
+        @Override
+        public void recordRequest(String method, long serverTookMillis, long clientNanos, long totalHits) {
+        }
+
+        @Override
+        public void recordError(String method) {
+        }
+    };
+
+    /**
+     * Records a successful request.
+     *
+     * @param method           Name of the repository method that executed the request
+     * @param serverTookMillis Time the cluster reported for executing the request, -1 if not available
+     * @param clientNanos      Wall clock time on the client including the conversion of the response
+     * @param totalHits        Total number of hits of a search, 0 for other requests
+     */
+    void recordRequest(String method, long serverTookMillis, long clientNanos, long totalHits);
+
+    /**
+     * Records a failed request.
+     *
+     * @param method Name of the repository method that executed the request
+     */
+    void recordError(String method);
+}
@@ -0,0 +1,117 @@
+package eu.luminis.elastic;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>Size bounded least recently used cache where every entry has its own time to live. Used by the
+ * {@link CachingArticleRepository} to keep query results.</p>
+ * <p>Values are loaded outside the lock, concurrent misses for the same key can therefore both load the value. A
+ * value that was loaded while the cache was invalidated is returned but not stored.</p>
+ *
+ * @param <K> Type of the key
+ * @param <V> Type of the cached values
+ */
+class ResultCache<K, V> {
+    private final int maximumSize;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private long generation;
+
+    ResultCache(int maximumSize, LongSupplier nanoClock) {
+        this.maximumSize = maximumSize;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the cached value for the key, or loads and stores it when absent or expired.
+     *
+     * @param key       Key of the value
+     * @param ttlNanos  Time to live of a newly loaded value in nanoseconds
+     * @param loader    Supplier used to load the value on a miss
+     * @return The cached or loaded value
+     */
+    V get(K key, long ttlNanos, Supplier<V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt - nanoClock.getAsLong() > 0) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            loadGeneration = generation;
+        }
+
+        V value = loader.get();
+
+        synchronized (this) {
+            if (loadGeneration == generation && ttlNanos > 0) {
+                entries.put(key, new Entry<>(value, nanoClock.getAsLong() + ttlNanos));
+                evictEldest();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes all entries, values that are being loaded at this moment will not be stored.
+     */
+    synchronized void invalidateAll() {
+        entries.clear();
+        generation++;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    long getHitCount() {
+        return hits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+
+    long getEvictionCount() {
+        return evictions.get();
+    }
+
+    long getExpirationCount() {
+        return expirations.get();
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maximumSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
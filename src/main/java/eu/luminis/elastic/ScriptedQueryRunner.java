@@ -0,0 +1,211 @@
+package eu.luminis.elastic;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Runs the queries of a script concurrently against the {@link AsyncArticleRepository}, used to replay a set of
+ * queries and as a simple load tool. Every line of the script contains one query:</p>
+ * <pre>
+ * authors
+ * issues
+ * author [name of the author]
+ * issue [name of the issue]
+ * search [search string]
+ * </pre>
+ * <p>Empty lines and lines starting with # are skipped. At most <em>concurrency</em> queries are in flight, the
+ * results are written as soon as a query completes, so they are not in the order of the script. Every result starts
+ * with the line number of the query. The latency of every query is recorded per action and reported in the
+ * {@link RunSummary}.</p>
+ */
+public class ScriptedQueryRunner {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final int PAGE_SIZE = 10;
+
+    private final AsyncArticleRepository repository;
+    private final int concurrency;
+
+    /**
+     * @param repository  Repository used to execute the queries
+     * @param concurrency Maximum number of queries executed at the same time, at least 1
+     */
+    public ScriptedQueryRunner(AsyncArticleRepository repository, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1, not " + concurrency);
+        }
+        this.repository = repository;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Reads the script line by line and executes the queries, waits until all queries completed. The output is not
+     * flushed per result, it is flushed when all queries completed.
+     *
+     * @param script Reader providing the queries, read from the calling thread only
+     * @param output Writer receiving the results and errors
+     * @return RunSummary with the number of queries, errors and the latencies
+     * @throws IOException Thrown when the script could not be read
+     */
+    public RunSummary run(BufferedReader script, PrintWriter output) throws IOException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = script.readLine()) != null) {
+                lineNumber++;
+                String query = line.trim();
+                if (query.isEmpty() || query.startsWith("#")) {
+                    continue;
+                }
+
+                int queryLine = lineNumber;
+                String action = query.split("\\s+", 2)[0];
+                String argument = query.substring(action.length()).trim();
+                inFlight.acquire();
+                long queryStart = System.nanoTime();
+                CompletableFuture<List<String>> result;
+                try {
+                    result = execute(action, argument);
+                } catch (RuntimeException e) {
+                    // Failed before the query was sent, no callback will release the permit
+                    inFlight.release();
+                    errors.increment();
+                    write(output, queryLine + ": " + query + " failed: " + e.getMessage(), Collections.emptyList());
+                    continue;
+                }
+                if (result == null) {
+                    inFlight.release();
+                    errors.increment();
+                    write(output, queryLine + ": unknown action " + action, Collections.emptyList());
+                    continue;
+                }
+
+                result.whenComplete((lines, failure) -> {
+                    latencies.computeIfAbsent(action, key -> new ConcurrentHistogram(SIGNIFICANT_DIGITS))
+                            .recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - queryStart));
+                    if (failure != null) {
+                        errors.increment();
+                        write(output, queryLine + ": " + query + " failed: " + failure.getMessage(),
+                                Collections.emptyList());
+                    } else {
+                        write(output, queryLine + ": " + query, lines);
+                    }
+                    inFlight.release();
+                });
+            }
+            inFlight.acquire(concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticExecutionException("Interrupted while running the queries");
+        }
+        output.flush();
+        return new RunSummary(latencies, errors.sum(), System.nanoTime() - start);
+    }
+
+    private CompletableFuture<List<String>> execute(String action, String argument) {
+        switch (action) {
+            case "authors":
+                return repository.findAuthors().thenApply(ScriptedQueryRunner::formatCounts);
+            case "issues":
+                return repository.findIssues().thenApply(ScriptedQueryRunner::formatCounts);
+            case "author":
+                return repository.findAllArticlesForAuthor(argument).thenApply(ScriptedQueryRunner::formatArticles);
+            case "issue":
+                return repository.findAllArticlesForIssue(argument).thenApply(ScriptedQueryRunner::formatArticles);
+            case "search":
+                return repository.searchArticlesBy(argument, 0, PAGE_SIZE).thenApply(ScriptedQueryRunner::formatArticles);
+            default:
+                return null;
+        }
+    }
+
+    private static void write(PrintWriter output, String header, List<String> lines) {
+        synchronized (output) {
+            output.println(header);
+            lines.forEach(line -> output.println("  " + line));
+        }
+    }
+
+    private static List<String> formatCounts(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .map(entry -> String.format("%s (%d)", entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> formatArticles(List<Article> articles) {
+        return articles.stream()
+                .map(article -> String.format("%s [%s-%s]", article.getTitle(), article.getAuthor(),
+                        article.getPostDate() == null ? "" : article.getPostDate().format(JavaMagazineRunner.POST_DATE_FORMAT)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Number of queries, errors and the latency histograms in microseconds per action of one run.
+     */
+    public static class RunSummary {
+        private final Map<String, Histogram> latencies;
+        private final long errorCount;
+        private final long elapsedNanos;
+
+        RunSummary(Map<String, Histogram> latencies, long errorCount, long elapsedNanos) {
+            this.latencies = new TreeMap<>(latencies);
+            this.errorCount = errorCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getQueryCount() {
+            return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return Map with the action as key and the histogram of the latencies in microseconds as value
+         */
+        public Map<String, Histogram> getLatencies() {
+            return Collections.unmodifiableMap(latencies);
+        }
+
+        /**
+         * Prints the throughput and a line per action with the number of queries and the latency percentiles in
+         * milliseconds.
+         */
+        public void print(PrintWriter output) {
+            double seconds = elapsedNanos / 1e9;
+            output.println(String.format(Locale.ROOT, "%d queries, %d errors in %.2f s, %.1f queries/s",
+                    getQueryCount(), errorCount, seconds, getQueryCount() / seconds));
+            output.println(String.format(Locale.ROOT, "%-12s %8s %9s %9s %9s %9s",
+                    "action", "count", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+            latencies.forEach((action, histogram) -> output.println(String.format(Locale.ROOT,
+                    "%-12s %8d %9.2f %9.2f %9.2f %9.2f", action, histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0)));
+            output.flush();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package eu.luminis.elastic;
+
+/**
+ * <p>Decides which copies of the shards execute a search, by providing the preference of every search request. The
+ * strategy is informed about the latency of every search and about searches that timed out, so adaptive strategies
+ * can move away from slow nodes. Implementations must be thread safe.</p>
+ * <p>The static strategies always use the same preference. A search that timed out is retried without a
+ * preference, so the cluster picks the copies again.</p>
+ */
+public interface SearchPreference {
+    /**
+     * Lets the cluster choose the shard copies, round robin.
+     */
+    SearchPreference NONE = () -> null;
+
+    /**
+     * Executes the search on shard copies on the node the client is connected to, when possible.
+     */
+    SearchPreference LOCAL = () -> "_local";
+
+    /**
+     * Executes the search on replicas, only using the primary when no replica is available.
+     */
+    SearchPreference REPLICA_FIRST = () -> "_replica_first";
+
+    /**
+     * Executes all searches of a session on the same shard copies, which keeps the caches of those copies warm and
+     * gives consistent ordering of results while paging.
+     *
+     * @param sessionId Identifier of the session, like the id of the user
+     * @return SearchPreference routing all searches of the session to the same copies
+     */
+    static SearchPreference sessionSticky(String sessionId) {
+        return () -> sessionId;
+    }
+
+    /**
+     * @return String with the preference of the next search, null for no preference
+     */
+    String preference();
+
+    /**
+     * @param failedPreference Preference of the search that timed out
+     * @return String with the preference for the retry of the search, null for no preference
+     */
+    default String retryPreference(String failedPreference) {
+        return null;
+    }
+
+    /**
+     * Called after a search succeeded.
+     *
+     * @param preference Preference of the search
+     * @param nanos      Time on the client to execute the search
+     */
+    default void onResponse(String preference, long nanos) {
+    }
+
+    /**
+     * Called after a search timed out.
+     *
+     * @param preference Preference of the search
+     */
+    default void onFailure(String preference) {
+    }
+}
@@ -0,0 +1,40 @@
+package eu.luminis.elastic;
+
+/**
+ * Value of a keyword field with the number of articles containing it.
+ */
+public class TermBucket {
+    private final String term;
+    private final long docCount;
+    private final long docCountErrorUpperBound;
+
+    TermBucket(String term, long docCount, long docCountErrorUpperBound) {
+        this.term = term;
+        this.docCount = docCount;
+        this.docCountErrorUpperBound = docCountErrorUpperBound;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public long getDocCount() {
+        return docCount;
+    }
+
+    /**
+     * @return the maximum number of articles the doc count could be too low, 0 when the count is exact
+     */
+    public long getDocCountErrorUpperBound() {
+        return docCountErrorUpperBound;
+    }
+
+    @Override
+    public String toString() {
+        return "TermBucket{" +
+                "term='" + term + '\'' +
+                ", docCount=" + docCount +
+                ", docCountErrorUpperBound=" + docCountErrorUpperBound +
+                '}';
+    }
+}
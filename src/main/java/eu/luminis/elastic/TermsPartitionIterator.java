@@ -0,0 +1,97 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.bucket.terms.support.IncludeExclude;
+import org.elasticsearch.search.aggregations.metrics.cardinality.Cardinality;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import static eu.luminis.elastic.ArticleQueries.INDEX_BASE;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.cardinality;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+
+/**
+ * <p>Iterator over all values of a keyword field using partitioned terms aggregations. Elasticsearch 5 has no
+ * composite aggregation to page through buckets, instead the values are hashed into partitions and every request
+ * returns the buckets of one partition. The number of partitions is derived from the estimated number of values, so
+ * a partition contains about one page of buckets.</p>
+ * <p>The shard size of every request is as large as the size, each shard returns all values of the partition and
+ * the counts are exact unless a partition turns out to be larger than requested. Such a partition is requested again
+ * with a larger size. Only one partition is kept in memory, buckets are sorted by term within a partition.</p>
+ */
+class TermsPartitionIterator implements Iterator<TermBucket> {
+    private static final String VALUES = "values";
+
+    private final Client client;
+    private final String field;
+    private final int pageSize;
+    private final Function<SearchRequestBuilder, SearchResponse> executor;
+    private final Deque<TermBucket> buckets = new ArrayDeque<>();
+
+    private int numPartitions = -1;
+    private int partition;
+
+    TermsPartitionIterator(Client client, String field, int pageSize,
+                           Function<SearchRequestBuilder, SearchResponse> executor) {
+        this.client = client;
+        this.field = field;
+        this.pageSize = pageSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (numPartitions < 0) {
+            numPartitions = estimatePartitions();
+        }
+        while (buckets.isEmpty() && partition < numPartitions) {
+            fetchPartition(partition++);
+        }
+        return !buckets.isEmpty();
+    }
+
+    @Override
+    public TermBucket next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return buckets.poll();
+    }
+
+    private int estimatePartitions() {
+        SearchResponse response = executor.apply(client.prepareSearch(INDEX_BASE)
+                .addAggregation(cardinality(VALUES).field(field))
+                .setSize(0));
+        long estimatedValues = ((Cardinality) response.getAggregations().get(VALUES)).getValue();
+        return (int) Math.max(1, (estimatedValues + pageSize - 1) / pageSize);
+    }
+
+    private void fetchPartition(int partition) {
+        int size = pageSize;
+        Terms terms;
+        do {
+            // Partitions are not exactly equal in size, start with some room and grow when the partition is larger
+            size *= 2;
+            SearchResponse response = executor.apply(client.prepareSearch(INDEX_BASE)
+                    .addAggregation(terms(VALUES)
+                            .field(field)
+                            .includeExclude(new IncludeExclude(partition, numPartitions))
+                            .size(size)
+                            .shardSize(size)
+                            .order(Terms.Order.term(true))
+                            .showTermDocCountError(true))
+                    .setSize(0));
+            terms = response.getAggregations().get(VALUES);
+        } while (terms.getSumOfOtherDocCounts() > 0);
+
+        terms.getBuckets().forEach(bucket ->
+                buckets.add(new TermBucket(bucket.getKeyAsString(), bucket.getDocCount(), bucket.getDocCountError())));
+    }
+}
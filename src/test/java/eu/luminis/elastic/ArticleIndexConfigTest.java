@@ -0,0 +1,46 @@
+package eu.luminis.elastic;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleIndexConfigTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void checkClasspathDefaults() {
+        ArticleIndexConfig config = ArticleIndexConfig.fromDirectory(null);
+
+        assertEquals("1", config.getIndexSettings().get("index.number_of_shards"));
+        assertEquals("-1", config.getBulkLoadSettings().get("index.refresh_interval"));
+        assertEquals("1s", config.getSearchSettings().get("index.refresh_interval"));
+        assertEquals("request", config.getSearchSettings().get("index.translog.durability"));
+        assertNull(config.getSearchSettings().get("index.number_of_shards"));
+        assertTrue(config.getMapping().contains("\"eager_global_ordinals\": true"));
+    }
+
+    @Test
+    public void checkSettingsFromDirectory() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        Files.write(directory.resolve("articles-settings.json"), ("{\"index\": {\"number_of_shards\": 3, " +
+                "\"number_of_replicas\": 1, \"refresh_interval\": \"30s\", \"translog.durability\": \"request\"}}")
+                .getBytes(StandardCharsets.UTF_8));
+
+        ArticleIndexConfig config = ArticleIndexConfig.fromDirectory(directory);
+
+        assertEquals("3", config.getIndexSettings().get("index.number_of_shards"));
+        assertEquals("30s", config.getSearchSettings().get("index.refresh_interval"));
+        assertEquals("1", config.getSearchSettings().get("index.number_of_replicas"));
+        assertEquals("-1", config.getBulkLoadSettings().get("index.refresh_interval"));
+    }
+}
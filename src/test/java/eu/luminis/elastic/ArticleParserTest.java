@@ -0,0 +1,38 @@
+package eu.luminis.elastic;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class ArticleParserTest {
+    private final ArticleParser parser = new ArticleParser();
+
+    @Test
+    public void checkParseFromStream() throws IOException {
+        List<Article> articles;
+        try (InputStream inputStream = ArticleParserTest.class.getResourceAsStream("/fixtures/page-1.html")) {
+            articles = parser.parse(inputStream, null, JsoupPageFetcher.BASE_URL + 1);
+        }
+
+        assertEquals(3, articles.size());
+        assertEquals("Elasticsearch vanuit Java", articles.get(1).getTitle());
+        assertEquals(LocalDate.of(2017, 3, 13), articles.get(0).getPostDate());
+        assertEquals(LocalDate.of(2017, 1, 2), articles.get(2).getPostDate());
+        assertNotNull(articles.get(0).getContentHash());
+    }
+
+    @Test
+    public void checkParseDocument() throws IOException {
+        List<Article> fromDocument = parser.parse(IngestPipelineTest.fetchFixture(2));
+
+        assertEquals(2, fromDocument.size());
+        assertEquals("JUnit 5 is er", fromDocument.get(1).getTitle());
+        assertEquals(ArticleFingerprints.contentHash(fromDocument.get(1)), fromDocument.get(1).getContentHash());
+    }
+}
@@ -1,16 +1,56 @@
 package eu.luminis.elastic;
 
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.bulk.BulkAction;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.MultiSearchAction;
+import org.elasticsearch.action.search.SearchAction;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.FilterClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
-
-import java.util.Date;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ArticleRepositoryTest extends ElasticTestCase {
+    // Longer than the maximum term length of lucene, the keyword field of the link rejects it
+    private static final String IMMENSE_LINK = "/link/" + new String(new char[40000]).replace('\0', 'x');
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private ArticleRepository articleRepository;
 
     @Before
@@ -61,6 +101,8 @@ public class ArticleRepositoryTest extends ElasticTestCase {
 
         assertEquals(0, articles.size());
 
+        assertEquals(0, articleRepository.findAllArticlesForIssue("").size());
+
     }
 
     @Test
@@ -89,6 +131,9 @@ public class ArticleRepositoryTest extends ElasticTestCase {
 
         assertEquals(0, articles.size());
 
+        assertEquals(0, articleRepository.findAllArticlesForAuthor("").size());
+        assertEquals(0, articleRepository.streamAllArticlesForAuthor("", 2).count());
+
     }
 
     @Test
@@ -135,6 +180,586 @@ public class ArticleRepositoryTest extends ElasticTestCase {
         assertEquals(2,authors.get("Author 3").longValue());
     }
 
+    @Test
+    public void checkBulkIndexArticles() {
+        List<Article> failed = new ArrayList<>();
+        BulkIndexConfig config = new BulkIndexConfig().setBulkActions(3).setConcurrentRequests(0);
+
+        ArticleBulkIndexer bulkIndexer = articleRepository.createBulkIndexer(config, (article, reason) -> failed.add(article));
+        for (int i = 0; i < 10; i++) {
+            bulkIndexer.add(new Article()
+                    .setTitle("Bulk " + i)
+                    .setAuthor("Author 4")
+                    .setDescription("Description about bulk article " + i)
+                    .setLink("/link/bulk" + i)
+                    .setIssue("issue4")
+                    .setPostDate(LocalDate.now()));
+        }
+        bulkIndexer.close();
+        client().admin().indices().prepareRefresh().get();
+
+        assertEquals(10, bulkIndexer.getIndexedCount());
+        assertEquals(0, failed.size());
+        assertEquals(10, articleRepository.findAllArticlesForIssue("issue4").size());
+    }
+
+    @Test
+    public void checkBulkIndexReportsFailureAfterRetry() {
+        // The first bulk response reports the second article as rejected, the retry contains only that article
+        AtomicInteger bulkCount = new AtomicInteger();
+        Client rejectingClient = new FilterClient(client()) {
+            @Override
+            @SuppressWarnings("unchecked")
+            protected <Request extends ActionRequest, Response extends ActionResponse,
+                    RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>> void doExecute(
+                    Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+                if (action != BulkAction.INSTANCE || bulkCount.getAndIncrement() > 0) {
+                    super.doExecute(action, request, listener);
+                    return;
+                }
+                super.doExecute(action, request, ActionListener.wrap(response -> {
+                    BulkItemResponse[] items = ((BulkResponse) response).getItems();
+                    BulkItemResponse rejected = items[1];
+                    items[1] = new BulkItemResponse(rejected.getItemId(), rejected.getOpType(),
+                            new BulkItemResponse.Failure(rejected.getIndex(), rejected.getType(), rejected.getId(),
+                                    new EsRejectedExecutionException("Simulated rejection")));
+                    listener.onResponse((Response) new BulkResponse(items, ((BulkResponse) response).getTookInMillis()));
+                }, listener::onFailure));
+            }
+        };
+        List<Article> failed = new ArrayList<>();
+        BulkIndexConfig config = new BulkIndexConfig().setBulkActions(2).setConcurrentRequests(0);
+
+        ArticleBulkIndexer bulkIndexer = new ArticleRepository(rejectingClient)
+                .createBulkIndexer(config, (article, reason) -> failed.add(article));
+        bulkIndexer.add(new Article().setTitle("Test Indexed").setAuthor("Author 5").setLink("/link/indexed"));
+        bulkIndexer.add(new Article().setTitle("Test Immense Link").setAuthor("Author 5").setLink(IMMENSE_LINK));
+        bulkIndexer.close();
+
+        assertEquals(2, bulkCount.get());
+        assertEquals(1, bulkIndexer.getIndexedCount());
+        assertEquals(1, failed.size());
+        assertEquals("Test Immense Link", failed.get(0).getTitle());
+    }
+
+    @Test
+    public void checkRebuildIndexFailingLoader() {
+        String oldIndex = currentIndex();
+
+        try {
+            articleRepository.rebuildIndex(bulkIndexer -> {
+                throw new IllegalStateException("Loader failed");
+            });
+            fail("Expected the rebuild to fail");
+        } catch (IllegalStateException e) {
+            assertOnlyIndex(oldIndex);
+        }
+    }
+
+    @Test
+    public void checkRebuildIndexWithFailedArticle() {
+        String oldIndex = currentIndex();
+
+        try {
+            articleRepository.rebuildIndex(bulkIndexer -> {
+                bulkIndexer.add(new Article().setTitle("Test Rebuild").setAuthor("Author 5").setLink("/link/rebuild"));
+                bulkIndexer.add(new Article().setTitle("Test Immense Link").setAuthor("Author 5").setLink(IMMENSE_LINK));
+            });
+            fail("Expected the rebuild to fail");
+        } catch (ElasticExecutionException e) {
+            assertTrue(e.getMessage().contains("1 articles could not be indexed"));
+            assertOnlyIndex(oldIndex);
+        }
+    }
+
+    @Test
+    public void checkRebuildIndexWithSourceFailures() {
+        String oldIndex = currentIndex();
+
+        try {
+            articleRepository.rebuildIndex(bulkIndexer -> {
+                bulkIndexer.add(new Article().setTitle("Test Rebuild").setAuthor("Author 5").setLink("/link/rebuild"));
+                bulkIndexer.reportSourceFailures(2);
+            });
+            fail("Expected the rebuild to fail");
+        } catch (ElasticExecutionException e) {
+            assertTrue(e.getMessage().contains("2 sources could not be read"));
+            assertOnlyIndex(oldIndex);
+        }
+    }
+
+    @Test
+    public void checkRebuildIndexWithFailingRollup() {
+        articleRepository.refreshRollup();
+        client().admin().indices().prepareClose(ArticleRollup.ROLLUP_INDEX).get();
+        try {
+            String newIndex = articleRepository.rebuildIndex(bulkIndexer ->
+                    bulkIndexer.add(new Article().setTitle("Test Rebuild").setAuthor("Author 5").setLink("/link/rebuild")));
+
+            assertEquals(newIndex, currentIndex());
+            assertEquals(1, articleRepository.searchArticlesBy(null).size());
+        } finally {
+            client().admin().indices().prepareDelete(ArticleRollup.ROLLUP_INDEX).get();
+        }
+    }
+
+    @Test
+    public void checkExportAndImportSnapshot() throws Exception {
+        Path snapshot = temporaryFolder.getRoot().toPath().resolve("articles.snapshot");
+
+        assertEquals(5, articleRepository.exportSnapshot(snapshot, 2));
+
+        articleRepository.indexArticle(new Article().setTitle("Test Later").setAuthor("Author 4").setLink("/link/later"));
+        String newIndex = articleRepository.importSnapshot(snapshot);
+
+        List<Article> articles = articleRepository.searchArticlesBy("", 0, 10);
+        assertEquals(5, articles.size());
+        assertEquals(3, articleRepository.searchArticlesBy("woman").size());
+        assertEquals(newIndex, client().admin().indices().prepareGetAliases("articles").get()
+                .getAliases().keysIt().next());
+    }
+
+    @Test
+    public void checkImportTruncatedSnapshot() throws Exception {
+        Path snapshot = temporaryFolder.getRoot().toPath().resolve("articles.snapshot");
+        articleRepository.exportSnapshot(snapshot, 1);
+        String oldIndex = currentIndex();
+
+        byte[] content = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(content, content.length - 20));
+
+        try {
+            articleRepository.importSnapshot(snapshot);
+            fail("Expected the truncated snapshot to be rejected");
+        } catch (ElasticExecutionException e) {
+            assertOnlyIndex(oldIndex);
+        }
+    }
+
+    @Test
+    public void checkImportSnapshotWithFailedArticle() throws Exception {
+        Path snapshot = temporaryFolder.getRoot().toPath().resolve("articles.snapshot");
+        try (ArticleSnapshotFile.Writer writer = new ArticleSnapshotFile.Writer(snapshot)) {
+            writer.write(Arrays.asList(
+                    new BytesArray("{\"title\":\"Test Import\",\"author\":\"Author 5\",\"link\":\"/link/import\"}"),
+                    new BytesArray("{\"title\":\"Test Immense Link\",\"author\":\"Author 5\",\"link\":\""
+                            + IMMENSE_LINK + "\"}")));
+            writer.finish();
+        }
+        String oldIndex = currentIndex();
+
+        try {
+            articleRepository.importSnapshot(snapshot);
+            fail("Expected the import to fail");
+        } catch (ElasticExecutionException e) {
+            assertOnlyIndex(oldIndex);
+        }
+    }
+
+    @Test
+    public void checkRebuildIndex() {
+        String oldIndex = client().admin().indices().prepareGetAliases("articles").get().getAliases().keysIt().next();
+
+        String newIndex = articleRepository.rebuildIndex(bulkIndexer -> {
+            assertEquals(5, articleRepository.searchArticlesBy("").size());
+            bulkIndexer.add(new Article()
+                    .setTitle("Test Rebuild")
+                    .setAuthor("Author 5")
+                    .setDescription("Description about the rebuild")
+                    .setLink("/link/rebuild")
+                    .setIssue("issue5")
+                    .setPostDate(LocalDate.now()));
+        });
+
+        List<Article> articles = articleRepository.searchArticlesBy("");
+        assertEquals(1, articles.size());
+        assertEquals("Test Rebuild", articles.get(0).getTitle());
+
+        String[] indexes = client().admin().indices().prepareGetIndex().setIndices("articles-*").get().getIndices();
+        assertEquals(1, indexes.length);
+        assertEquals(newIndex, indexes[0]);
+        assertNotEquals(oldIndex, newIndex);
+        assertEquals("1s", client().admin().indices().prepareGetSettings(newIndex).get()
+                .getSetting(newIndex, "index.refresh_interval"));
+        assertEquals("request", client().admin().indices().prepareGetSettings(newIndex).get()
+                .getSetting(newIndex, "index.translog.durability"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void checkIndexCreatedFromTemplate() throws Exception {
+        String index = client().admin().indices().prepareGetAliases("articles").get().getAliases().keysIt().next();
+
+        assertEquals("best_compression", client().admin().indices().prepareGetSettings(index).get()
+                .getSetting(index, "index.codec"));
+        Map<String, Object> properties = (Map<String, Object>) client().admin().indices().prepareGetMappings(index).get()
+                .getMappings().get(index).get("article").sourceAsMap().get("properties");
+        assertEquals(true, ((Map<String, Object>) properties.get("author")).get("eager_global_ordinals"));
+        assertEquals(false, ((Map<String, Object>) properties.get("link")).get("doc_values"));
+    }
+
+    @Test
+    public void checkStreamAllArticlesForAuthor() {
+        addBulkArticles("Author 6", 25);
+
+        try (Stream<Article> articles = articleRepository.streamAllArticlesForAuthor("Author 6", 7)) {
+            assertEquals(25, articles.map(Article::getLink).distinct().count());
+        }
+        try (Stream<Article> articles = articleRepository.streamArticlesBy("paged", 4)) {
+            assertEquals(3, articles.limit(3).count());
+        }
+        assertEquals(10, articleRepository.findAllArticlesForAuthor("Author 6").size());
+    }
+
+    @Test
+    public void checkStreamArticlesByRelevance() {
+        try (Stream<Article> articles = articleRepository.streamArticlesBy("man Christian", 1)) {
+            assertEquals(Arrays.asList("Test Christian", "Test Bob"),
+                    articles.map(Article::getTitle).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void checkPaginatedSearch() {
+        addBulkArticles("Author 6", 25);
+
+        assertEquals(20, articleRepository.searchArticlesBy("paged", 0, 20).size());
+        assertEquals(5, articleRepository.findAllArticlesForAuthor("Author 6", 20, 20).size());
+        assertEquals(2, articleRepository.searchAndFilterAuthorArticlesBy("Author 6", "paged", 23, 10).size());
+    }
+
+    @Test
+    public void checkFindArticlesWithSourceFiltering() {
+        List<Article> articles = articleRepository.findAllArticlesForAuthor("Author 1", 0, 10, "title", "postDate");
+
+        assertEquals(2, articles.size());
+        articles.forEach(article -> {
+            assertNotNull(article.getTitle());
+            assertNotNull(article.getPostDate());
+            assertNull(article.getDescription());
+            assertNull(article.getAuthor());
+        });
+    }
+
+    @Test
+    public void checkSearchArticlesWithCriteriaAndFacets() {
+        ArticleCriteria criteria = new ArticleCriteria()
+                .withAuthors("Author 1", "Author 3")
+                .withIssues("issue2", "issue3")
+                .postedBetween(LocalDate.now().minusDays(1), null)
+                .withText("woman")
+                .withFacets(ArticleCriteria.AUTHOR, ArticleCriteria.ISSUE);
+
+        ArticleSearchResult result = articleRepository.searchArticles(criteria, 0, 10);
+
+        assertEquals(2, result.getTotalHits());
+        assertEquals(2, result.getArticles().size());
+        assertEquals(Long.valueOf(2), result.getFacet(ArticleCriteria.AUTHOR).get("Author 3"));
+        assertEquals(Long.valueOf(1), result.getFacet(ArticleCriteria.ISSUE).get("issue3"));
+    }
+
+    @Test
+    public void checkSearchArticlesWithHighlight() {
+        articleRepository.indexArticle(new Article().setTitle("Test Long").setAuthor("Author 4")
+                .setDescription("A long description that starts without the word we are looking for and keeps going "
+                        + "until it finally mentions the woman near the end of the text")
+                .setLink("/link/long").setIssue("issue4").setPostDate(LocalDate.now()));
+        client().admin().indices().prepareRefresh().get();
+        ArticleCriteria criteria = new ArticleCriteria()
+                .withText("woman")
+                .withHighlight(40, 1)
+                .withSourceFields(ArticleCriteria.TITLE, "link");
+
+        ArticleSearchResult result = articleRepository.searchArticles(criteria, 0, 10);
+
+        assertEquals(4, result.getArticles().size());
+        for (int i = 0; i < result.getArticles().size(); i++) {
+            Article article = result.getArticles().get(i);
+            assertNotNull(article.getTitle());
+            assertNull(article.getDescription());
+            assertNull(article.getAuthor());
+
+            List<String> fragments = result.getFragments(i, ArticleCriteria.DESCRIPTION);
+            assertEquals(1, fragments.size());
+            assertTrue(fragments.get(0).contains("<em>woman</em>"));
+            assertFalse(fragments.get(0).contains("starts without"));
+            assertTrue(fragments.get(0).length() < 80);
+            assertEquals(article.getTitle(), result.getFragments(i, ArticleCriteria.TITLE).get(0));
+        }
+    }
+
+    @Test
+    public void checkSearchArticlesOutsideDateRange() {
+        ArticleCriteria criteria = new ArticleCriteria()
+                .withIssues("", null)
+                .postedBetween(null, LocalDate.now().minusDays(1));
+
+        ArticleSearchResult result = articleRepository.searchArticles(criteria, 0, 10);
+
+        assertEquals(0, result.getTotalHits());
+        assertTrue(result.getFacet(ArticleCriteria.AUTHOR).isEmpty());
+    }
+
+    @Test
+    public void checkFindArticlesPerPeriod() {
+        articleRepository.indexArticle(new Article().setTitle("Test Old").setAuthor("Author 1")
+                .setDescription("Description about an old article").setLink("/link/old").setIssue("issue0")
+                .setPostDate(LocalDate.now().minusMonths(2)));
+        client().admin().indices().prepareRefresh().get();
+
+        List<ArticlePeriod> months = articleRepository.findArticlesPerPeriod(ArticlePeriod.Interval.MONTH, 0,
+                ArticleCriteria.AUTHOR);
+        List<ArticlePeriod> nonEmptyMonths = articleRepository.findArticlesPerPeriod(ArticlePeriod.Interval.MONTH, 1);
+
+        assertEquals(3, months.size());
+        assertEquals(0, months.get(1).getArticleCount());
+        assertEquals(2, nonEmptyMonths.size());
+        assertEquals(5, nonEmptyMonths.get(1).getArticleCount());
+        assertEquals(LocalDate.now().withDayOfMonth(1), months.get(2).getStart());
+        assertEquals(Long.valueOf(2), months.get(2).getBreakdown(ArticleCriteria.AUTHOR).get("Author 3"));
+        assertTrue(nonEmptyMonths.get(1).getBreakdown(ArticleCriteria.AUTHOR).isEmpty());
+    }
+
+    @Test
+    public void checkRolledUpArticlesPerPeriod() {
+        articleRepository.refreshRollup();
+
+        List<ArticlePeriod> years = articleRepository.findRolledUpArticlesPerPeriod(ArticlePeriod.Interval.YEAR);
+
+        assertEquals(1, years.size());
+        assertEquals(5, years.get(0).getArticleCount());
+        assertEquals(Long.valueOf(2), years.get(0).getBreakdown(ArticleCriteria.ISSUE).get("issue1"));
+        assertEquals(1, articleRepository.findRolledUpArticlesPerPeriod(ArticlePeriod.Interval.MONTH).size());
+    }
+
+    @Test
+    public void checkStreamAllAuthors() {
+        try (ArticleBulkIndexer bulkIndexer = articleRepository.createBulkIndexer()) {
+            for (int i = 0; i < 30; i++) {
+                bulkIndexer.add(new Article().setTitle("Many " + i).setAuthor("Many Author " + i)
+                        .setDescription("Description about many authors").setLink("/link/many" + i)
+                        .setIssue("issue7").setPostDate(LocalDate.now()));
+            }
+        }
+        client().admin().indices().prepareRefresh().get();
+
+        Map<String, Long> authors = new HashMap<>();
+        try (Stream<TermBucket> stream = articleRepository.streamAllAuthors(5)) {
+            stream.forEach(bucket -> {
+                assertEquals(0, bucket.getDocCountErrorUpperBound());
+                assertNull(authors.put(bucket.getTerm(), bucket.getDocCount()));
+            });
+        }
+
+        assertEquals(33, authors.size());
+        assertEquals(Long.valueOf(2), authors.get("Author 1"));
+        assertEquals(Long.valueOf(1), authors.get("Many Author 29"));
+        assertEquals(30, articleRepository.streamAllIssues(2)
+                .filter(bucket -> bucket.getTerm().equals("issue7"))
+                .findFirst().get().getDocCount());
+    }
+
+    @Test
+    public void checkSearchWithPreferences() {
+        LatencyAwareSearchPreference latencyAware = new LatencyAwareSearchPreference(client());
+
+        assertEquals(3, articleRepository.setSearchPreference(SearchPreference.sessionSticky("user-1"))
+                .searchArticlesBy("woman").size());
+        assertEquals(3, articleRepository.setSearchPreference(latencyAware).searchArticlesBy("woman").size());
+        assertEquals(1, latencyAware.getLatencies().size());
+    }
+
+    @Test
+    public void checkSearchTimeoutAfterRetries() {
+        // Searches sent through this client never complete, every attempt times out
+        Client unresponsiveClient = new FilterClient(client()) {
+            @Override
+            protected <Request extends ActionRequest, Response extends ActionResponse,
+                    RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>> void doExecute(
+                    Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+                if (action != SearchAction.INSTANCE) {
+                    super.doExecute(action, request, listener);
+                }
+            }
+        };
+        List<String> failedPreferences = new ArrayList<>();
+        SearchPreference recordingPreference = new SearchPreference() {
+            @Override
+            public String preference() {
+                return "first";
+            }
+
+            @Override
+            public String retryPreference(String failedPreference) {
+                return "retry-" + failedPreferences.size();
+            }
+
+            @Override
+            public void onFailure(String preference) {
+                failedPreferences.add(preference);
+            }
+        };
+        ArticleRepository repository = new ArticleRepository(unresponsiveClient)
+                .setSearchPreference(recordingPreference)
+                .setSearchTimeout(TimeValue.timeValueMillis(50), 2);
+
+        try {
+            repository.searchArticlesBy("woman");
+            fail("Expected the search to time out");
+        } catch (ElasticExecutionException e) {
+            assertEquals("searchArticlesBy timed out after 3 attempts", e.getMessage());
+        }
+        assertEquals(Arrays.asList("first", "retry-1", "retry-2"), failedPreferences);
+    }
+
+    @Test
+    public void checkSuggest() {
+        ArticleSuggestions suggestions = articleRepository.suggest("test chr", 5);
+
+        assertEquals(2, suggestions.getTitles().size());
+        assertTrue(suggestions.getTitles().contains("Test Christian"));
+        assertTrue(suggestions.getTitles().contains("Test Christa"));
+    }
+
+    @Test
+    public void checkSuggestWithTypo() {
+        articleRepository.refreshRollup();
+        ArticleSuggestions suggestions = articleRepository.suggest("Autor", 5);
+
+        assertEquals(3, suggestions.getAuthors().size());
+        assertEquals(0, articleRepository.suggest("", 5).getTitles().size());
+        assertEquals(1, articleRepository.suggest("Test Chritsa", 1).getTitles().size());
+    }
+
+    @Test
+    public void checkIndexArticleWithoutAuthor() {
+        articleRepository.indexArticle(new Article().setTitle("Test Without Author").setLink("/link/without-author"));
+        client().admin().indices().prepareRefresh().get();
+
+        assertEquals(1, articleRepository.searchArticlesBy("without").size());
+    }
+
+    @Test
+    public void checkSuggestUsesOneRequest() {
+        articleRepository.refreshRollup();
+        List<Action<?, ?, ?>> actions = new ArrayList<>();
+        Client recordingClient = new FilterClient(client()) {
+            @Override
+            protected <Request extends ActionRequest, Response extends ActionResponse,
+                    RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>> void doExecute(
+                    Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+                actions.add(action);
+                super.doExecute(action, request, listener);
+            }
+        };
+
+        ArticleSuggestions suggestions = new ArticleRepository(recordingClient).suggest("Aut", 5);
+
+        assertEquals(Collections.singletonList(MultiSearchAction.INSTANCE), actions);
+        assertEquals(3, suggestions.getAuthors().size());
+    }
+
+    @Test
+    public void checkSuggestDistinctAuthors() {
+        for (int i = 0; i < 30; i++) {
+            addArticle("Test Prolific " + i, "Author 9", "Description number " + i, "/link/prolific/" + i, "issue4");
+        }
+        client().admin().indices().prepareRefresh().get();
+        articleRepository.refreshRollup();
+
+        List<String> authors = articleRepository.suggest("Aut", 5).getAuthors();
+
+        assertEquals(4, authors.size());
+        assertEquals("Author 9", authors.get(0));
+        assertTrue(authors.containsAll(Arrays.asList("Author 1", "Author 2", "Author 3")));
+    }
+
+    @Test
+    public void checkQueryBatch() {
+        ArticleQueryBatch.Result result = articleRepository.createQueryBatch()
+                .withAuthors()
+                .withIssues()
+                .searchArticlesBy("search", "woman")
+                .searchAndFilterAuthorArticlesBy("filtered", "Author 1", "Bob")
+                .findAllArticlesForIssue("issue", "issue2")
+                .execute();
+
+        assertEquals(articleRepository.findAuthors(), result.getAuthors());
+        assertEquals(articleRepository.findIssues(), result.getIssues());
+        assertEquals(3, result.getArticles("search").size());
+        assertEquals(1, result.getArticles("filtered").size());
+        assertEquals(2, result.getArticles("issue").size());
+    }
+
+    @Test
+    public void checkCachingRepository() {
+        AtomicLong clock = new AtomicLong();
+        CachingArticleRepository cachingRepository = new CachingArticleRepository(articleRepository, 2, clock::get)
+                .setTtl(CachingArticleRepository.CachedQuery.AUTHORS, Duration.ofSeconds(10));
+
+        assertEquals(3, cachingRepository.findAuthors().size());
+        assertEquals(3, cachingRepository.findAuthors().size());
+        assertEquals(1L, cachingRepository.getStatistics().get("hits").longValue());
+
+        cachingRepository.indexArticle(new Article().setTitle("Test Cache").setAuthor("Author 7")
+                .setLink("/link/cache").setIssue("issue1").setPostDate(LocalDate.now()));
+        client().admin().indices().prepareRefresh().get();
+        assertEquals(4, cachingRepository.findAuthors().size());
+
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        cachingRepository.findAuthors();
+        assertEquals(1L, cachingRepository.getStatistics().get("expirations").longValue());
+
+        cachingRepository.findIssues();
+        cachingRepository.searchArticlesBy("woman");
+        assertEquals(1L, cachingRepository.getStatistics().get("evictions").longValue());
+        assertEquals(2L, cachingRepository.getStatistics().get("size").longValue());
+    }
+
+    @Test
+    public void checkMetricsAreRecorded() {
+        HistogramRepositoryMetrics metrics = new HistogramRepositoryMetrics();
+        ArticleRepository measuredRepository = new ArticleRepository(client(), metrics)
+                .setSlowQueryThreshold(TimeValue.timeValueMillis(0));
+
+        measuredRepository.searchArticlesBy("woman");
+        measuredRepository.searchArticlesBy("man");
+        measuredRepository.findAuthors();
+
+        MethodMetricsMXBean search = metrics.getMethodMetrics().get("searchArticlesBy");
+        assertEquals(2, search.getRequestCount());
+        assertEquals(0, search.getErrorCount());
+        assertEquals(5, search.getTotalHits());
+        assertTrue(search.getClientLatencyMax() >= search.getClientLatencyP50());
+        assertEquals(1, metrics.getMethodMetrics().get("findAuthors").getRequestCount());
+    }
+
+    private void addBulkArticles(String author, int numArticles) {
+        try (ArticleBulkIndexer bulkIndexer = articleRepository.createBulkIndexer()) {
+            for (int i = 0; i < numArticles; i++) {
+                bulkIndexer.add(new Article()
+                        .setTitle("Paged " + i)
+                        .setAuthor(author)
+                        .setDescription("Description about paged article " + i)
+                        .setLink("/link/paged" + i)
+                        .setIssue("issue6")
+                        .setPostDate(LocalDate.now()));
+            }
+        }
+        client().admin().indices().prepareRefresh().get();
+    }
+
+    private String currentIndex() {
+        return client().admin().indices().prepareGetAliases("articles").get().getAliases().keysIt().next();
+    }
+
+    private void assertOnlyIndex(String indexName) {
+        String[] indexes = client().admin().indices().prepareGetIndex().setIndices("articles-*").get().getIndices();
+        assertEquals(Collections.singletonList(indexName), Arrays.asList(indexes));
+        assertEquals(indexName, currentIndex());
+        assertEquals(5, articleRepository.searchArticlesBy("").size());
+    }
+
     private void createTestArticles() {
         addArticle("Test Bob","Author 1","Description about the man Bob","/link/bob","issue1");
         addArticle("Test Alice","Author 2","Description about the woman Alice","/link/alice","issue1");
@@ -152,7 +777,7 @@ public class ArticleRepositoryTest extends ElasticTestCase {
                 .setDescription(description)
                 .setLink(link)
                 .setIssue(issue)
-                .setPostDate(new Date());
+                .setPostDate(LocalDate.now());
 
         articleRepository.indexArticle(article);
     }
@@ -0,0 +1,82 @@
+package eu.luminis.elastic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncArticleRepositoryTest extends ElasticTestCase {
+    private AsyncArticleRepository asyncRepository;
+
+    @Before
+    public void setup() throws Exception {
+        ArticleRepository articleRepository = new ArticleRepository(client());
+        articleRepository.deleteAllIndexes();
+        articleRepository.createIndex();
+
+        asyncRepository = new AsyncArticleRepository(client());
+        CompletableFuture.allOf(
+                addArticle("Test Bob", "Author 1", "Description about the man Bob", "issue1"),
+                addArticle("Test Alice", "Author 2", "Description about the woman Alice", "issue1"),
+                addArticle("Test Angelina", "Author 3", "Description about the woman Angelina", "issue2")
+        ).get();
+        client().admin().indices().prepareRefresh().get();
+    }
+
+    @Test
+    public void checkConcurrentQueries() throws Exception {
+        CompletableFuture<List<Article>> search = asyncRepository.searchArticlesBy("woman");
+        CompletableFuture<List<Article>> filtered = asyncRepository.searchAndFilterIssueArticlesBy("issue1", "woman");
+        CompletableFuture<Map<String, Long>> authors = asyncRepository.findAuthors();
+        CompletableFuture<Map<String, Long>> issues = asyncRepository.findIssues();
+
+        assertEquals(2, search.get().size());
+        assertEquals(1, filtered.get().size());
+        assertEquals(3, authors.get().size());
+        assertEquals(2, issues.get().get("issue1").longValue());
+        assertEquals(1, asyncRepository.findAllArticlesForAuthor("Author 2").get().size());
+        assertEquals("GREEN", asyncRepository.getStatus().get());
+    }
+
+    @Test
+    public void checkIndexSameArticleTwice() throws Exception {
+        String firstId = addArticle("Test Christa", "Author 3", "Description about the woman Christa", "issue2").get();
+        String secondId = addArticle("Test Christa", "Author 3", "Changed description about Christa", "issue2").get();
+        client().admin().indices().prepareRefresh().get();
+
+        assertEquals(firstId, secondId);
+        List<Article> articles = asyncRepository.searchArticlesBy("Christa").get();
+        assertEquals(1, articles.size());
+        assertEquals("Changed description about Christa", articles.get(0).getDescription());
+    }
+
+    @Test
+    public void checkFailureIsMappedToElasticExecutionException() throws Exception {
+        asyncRepository.deleteAllIndexes().get();
+
+        try {
+            asyncRepository.searchArticlesBy("woman").get();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ElasticExecutionException);
+            return;
+        }
+        throw new AssertionError("Expected the search to fail without an index");
+    }
+
+    private CompletableFuture<String> addArticle(String title, String author, String description, String issue) {
+        return asyncRepository.indexArticle(new Article()
+                .setTitle(title)
+                .setAuthor(author)
+                .setDescription(description)
+                .setLink("/link/" + title)
+                .setIssue(issue)
+                .setPostDate(LocalDate.now()));
+    }
+}
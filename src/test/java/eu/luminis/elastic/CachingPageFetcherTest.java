@@ -0,0 +1,104 @@
+package eu.luminis.elastic;
+
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.nodes.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class CachingPageFetcherTest {
+    private static final String ETAG = "\"page-1-v1\"";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/databasejava/", exchange -> {
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] html = readFixture();
+                fullResponses.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+                exchange.sendResponseHeaders(200, html.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(html);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/databasejava/?page=";
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void checkConditionalFetch() throws IOException {
+        CachingPageFetcher fetcher = new CachingPageFetcher(new PageCache(temporaryFolder.getRoot().toPath()), baseUrl);
+
+        Document fetched = fetcher.fetch(1);
+        Document cached = fetcher.fetch(1);
+
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+        assertEquals(3, new JavaMagazineReader(fetcher).parseArticles(fetched).size());
+        assertEquals(3, new JavaMagazineReader(fetcher).parseArticles(cached).size());
+    }
+
+    @Test
+    public void checkOfflineReplay() throws IOException {
+        Path cacheDirectory = temporaryFolder.getRoot().toPath();
+        new CachingPageFetcher(new PageCache(cacheDirectory), baseUrl).fetch(1);
+        server.stop(0);
+
+        CachingPageFetcher offlineFetcher = new CachingPageFetcher(new PageCache(cacheDirectory), baseUrl)
+                .setOffline(true);
+
+        assertEquals(3, new JavaMagazineReader(offlineFetcher).startReading(1).size());
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void checkOfflineMissingPage() throws IOException {
+        new CachingPageFetcher(new PageCache(temporaryFolder.getRoot().toPath()), baseUrl)
+                .setOffline(true)
+                .fetch(2);
+    }
+
+    private static byte[] readFixture() throws IOException {
+        try (InputStream inputStream = CachingPageFetcherTest.class.getResourceAsStream("/fixtures/page-1.html")) {
+            byte[] buffer = new byte[64 * 1024];
+            int length = 0;
+            int read;
+            while ((read = inputStream.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+            }
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+}
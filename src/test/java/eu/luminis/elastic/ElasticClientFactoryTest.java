@@ -0,0 +1,28 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Test;
+
+public class ElasticClientFactoryTest {
+
+    @Test(expected = ElasticConfigException.class)
+    public void checkUnreachableClusterIsReported() {
+        ElasticClientFactory factory = new ElasticClientFactory("playground", "localhost:19399")
+                .setSniff(false)
+                .setPingTimeout(TimeValue.timeValueMillis(500));
+        try {
+            factory.obtainClient();
+        } finally {
+            factory.close();
+        }
+    }
+
+    @Test(expected = ElasticConfigException.class)
+    public void checkClosedFactoryDoesNotCreateClient() {
+        ElasticClientFactory factory = new ElasticClientFactory("playground", "localhost:19399");
+        factory.close();
+        factory.close();
+
+        factory.obtainClient();
+    }
+}
@@ -0,0 +1,110 @@
+package eu.luminis.elastic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Indexes the same articles in elasticsearch and in memory and expects the same answers from both.
+ */
+public class InMemoryArticleSearchEngineTest extends ElasticTestCase {
+    private ArticleRepository articleRepository;
+    private InMemoryArticleSearchEngine inMemoryEngine;
+
+    @Before
+    public void setup() {
+        articleRepository = new ArticleRepository(client());
+        articleRepository.deleteAllIndexes();
+        articleRepository.createIndex();
+        inMemoryEngine = new InMemoryArticleSearchEngine();
+
+        addArticle("Java streams in practice", "Author 1", "Streams, collectors and the fork join pool", "/link/1", "issue1");
+        addArticle("Reactive Java", "Author 2", "Reactive streams for Java developers", "/link/2", "issue1");
+        addArticle("Searching with elasticsearch", "Author 1", "Full text search with elasticsearch and Java", "/link/3", "issue2");
+        addArticle("Modules", "Author 3", "The module system of Java 9, a long description about modules and java", "/link/4", "issue2");
+        addArticle("Garbage collection", "Author 3", "Tuning the garbage collector", "/link/5", "issue3");
+        addArticle("Java, Java, Java", "Author 2", "Everything about java", "/link/6", "issue3");
+        addArticle("Lambdas", "Author 1", null, "/link/7", "issue3");
+
+        client().admin().indices().prepareRefresh().get();
+    }
+
+    @Test
+    public void searchArticlesBy() {
+        assertSameTitles(articleRepository.searchArticlesBy(null), inMemoryEngine.searchArticlesBy(null));
+        assertSameTitles(articleRepository.searchArticlesBy("java"), inMemoryEngine.searchArticlesBy("java"));
+        assertSameTitles(articleRepository.searchArticlesBy("Reactive streams"),
+                inMemoryEngine.searchArticlesBy("Reactive streams"));
+        assertSameTitles(articleRepository.searchArticlesBy("garbage-collection"),
+                inMemoryEngine.searchArticlesBy("garbage-collection"));
+        assertSameTitles(articleRepository.searchArticlesBy("nonexistent"), inMemoryEngine.searchArticlesBy("nonexistent"));
+        assertSameTitles(articleRepository.searchArticlesBy("java", 2, 3), inMemoryEngine.searchArticlesBy("java", 2, 3));
+        assertSameTitles(articleRepository.searchArticlesBy("!!!"), inMemoryEngine.searchArticlesBy("!!!"));
+    }
+
+    @Test
+    public void findAllArticlesFor() {
+        assertSameTitles(articleRepository.findAllArticlesForIssue("issue3"), inMemoryEngine.findAllArticlesForIssue("issue3"));
+        assertSameTitles(articleRepository.findAllArticlesForAuthor("Author 1"),
+                inMemoryEngine.findAllArticlesForAuthor("Author 1"));
+        assertSameTitles(articleRepository.findAllArticlesForAuthor("author 1"),
+                inMemoryEngine.findAllArticlesForAuthor("author 1"));
+        assertSameTitles(articleRepository.findAllArticlesForIssue(""), inMemoryEngine.findAllArticlesForIssue(""));
+        assertSameTitles(articleRepository.findAllArticlesForAuthor(""), inMemoryEngine.findAllArticlesForAuthor(""));
+    }
+
+    @Test
+    public void searchAndFilterArticlesBy() {
+        assertSameTitles(articleRepository.searchAndFilterIssueArticlesBy("issue2", "java"),
+                inMemoryEngine.searchAndFilterIssueArticlesBy("issue2", "java"));
+        assertSameTitles(articleRepository.searchAndFilterAuthorArticlesBy("Author 2", "java streams"),
+                inMemoryEngine.searchAndFilterAuthorArticlesBy("Author 2", "java streams"));
+        assertSameTitles(articleRepository.searchAndFilterIssueArticlesBy("", "java"),
+                inMemoryEngine.searchAndFilterIssueArticlesBy("", "java"));
+        assertSameTitles(articleRepository.searchAndFilterAuthorArticlesBy("Author 2", "!!!"),
+                inMemoryEngine.searchAndFilterAuthorArticlesBy("Author 2", "!!!"));
+    }
+
+    @Test
+    public void findAuthorsAndIssues() {
+        assertEquals(articleRepository.findAuthors(), inMemoryEngine.findAuthors());
+        assertEquals(articleRepository.findIssues(), inMemoryEngine.findIssues());
+    }
+
+    @Test
+    public void reindexReplacesArticle() {
+        inMemoryEngine.indexArticle(new Article().setTitle("Kotlin").setAuthor("Author 4").setLink("/link/2").setIssue("issue4"));
+
+        assertEquals(0, inMemoryEngine.searchArticlesBy("reactive").size());
+        assertEquals(1, inMemoryEngine.searchArticlesBy("kotlin").size());
+        assertEquals(0, inMemoryEngine.findAllArticlesForAuthor("Author 2").stream()
+                .filter(article -> "/link/2".equals(article.getLink())).count());
+        assertEquals(7, inMemoryEngine.searchArticlesBy(null, 0, 20).size());
+    }
+
+    private void assertSameTitles(List<Article> expected, List<Article> actual) {
+        assertEquals(titles(expected), titles(actual));
+    }
+
+    private static List<String> titles(List<Article> articles) {
+        return articles.stream().map(Article::getTitle).collect(Collectors.toList());
+    }
+
+    private void addArticle(String title, String author, String description, String link, String issue) {
+        Article article = new Article()
+                .setTitle(title)
+                .setAuthor(author)
+                .setDescription(description)
+                .setLink(link)
+                .setIssue(issue)
+                .setPostDate(LocalDate.of(2017, 1, 1));
+
+        articleRepository.indexArticle(article);
+        inMemoryEngine.indexArticle(article);
+    }
+}
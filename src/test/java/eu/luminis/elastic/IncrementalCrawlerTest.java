@@ -0,0 +1,125 @@
+package eu.luminis.elastic;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalCrawlerTest extends ElasticTestCase {
+    private static final PageFetcher FIXTURE_FETCHER = page ->
+            page <= 2 ? IngestPipelineTest.fetchFixture(page) : Jsoup.parse("<html><body></body></html>");
+
+    private ArticleRepository articleRepository;
+
+    @Before
+    public void setup() {
+        articleRepository = new ArticleRepository(client());
+        articleRepository.deleteAllIndexes();
+        articleRepository.createIndex();
+    }
+
+    @Test
+    public void checkFirstCrawlReadsUntilEmptyPage() {
+        IncrementalCrawler.CrawlResult result = crawl(FIXTURE_FETCHER);
+
+        assertEquals(3, result.getPagesRead());
+        assertEquals(5, result.getUpsertedCount());
+        assertEquals(0, result.getUnchangedCount());
+        assertEquals(5, articleRepository.searchArticlesBy(null).size());
+    }
+
+    @Test
+    public void checkCrawlStopsAtPageWithoutChanges() {
+        crawl(FIXTURE_FETCHER);
+
+        IncrementalCrawler.CrawlResult result = crawl(FIXTURE_FETCHER);
+
+        assertEquals(1, result.getPagesRead());
+        assertEquals(0, result.getUpsertedCount());
+        assertEquals(3, result.getUnchangedCount());
+    }
+
+    @Test
+    public void checkCrawlUpsertsChangedArticles() {
+        crawl(FIXTURE_FETCHER);
+
+        IncrementalCrawler.CrawlResult result = crawl(page -> {
+            Document document = FIXTURE_FETCHER.fetch(page);
+            if (page == 1) {
+                document.select("li.databasejava h3 a").first().text("Java 9 modules herzien");
+            }
+            return document;
+        });
+
+        assertEquals(2, result.getPagesRead());
+        assertEquals(1, result.getUpsertedCount());
+        assertEquals(4, result.getUnchangedCount());
+
+        List<Article> articles = articleRepository.searchArticlesBy(null);
+        assertEquals(5, articles.size());
+        assertEquals(1, articleRepository.searchArticlesBy("herzien").size());
+    }
+
+    @Test
+    public void checkCrawlCountsFailedUpserts() {
+        IncrementalCrawler.CrawlResult result = crawl(page -> {
+            Document document = FIXTURE_FETCHER.fetch(page);
+            if (page == 1) {
+                // Longer than the maximum term length of lucene, the keyword field of the link rejects it
+                String immenseLink = "/link/" + new String(new char[40000]).replace('\0', 'x');
+                document.select("li.databasejava header a").first().attr("href", immenseLink);
+            }
+            return document;
+        });
+
+        assertEquals(4, result.getUpsertedCount());
+        assertEquals(1, result.getFailedCount());
+        assertEquals(4, articleRepository.searchArticlesBy(null).size());
+    }
+
+    @Test
+    public void checkCrawlWithFailingRollup() {
+        articleRepository.refreshRollup();
+        client().admin().indices().prepareClose(ArticleRollup.ROLLUP_INDEX).get();
+        try {
+            IncrementalCrawler.CrawlResult result = crawl(FIXTURE_FETCHER);
+
+            assertEquals(5, result.getUpsertedCount());
+            assertEquals(5, articleRepository.searchArticlesBy(null).size());
+        } finally {
+            client().admin().indices().prepareDelete(ArticleRollup.ROLLUP_INDEX).get();
+        }
+    }
+
+    @Test
+    public void checkCrawlComparesUnmodifiedPagesWithIndex() {
+        crawl(FIXTURE_FETCHER);
+        articleRepository.deleteAllIndexes();
+        articleRepository.createIndex();
+
+        // The pages did not change since the previous crawl, like a caching fetcher answering from its cache after a
+        // 304, the crawler still compares their articles with the recreated index
+        List<Integer> fetchedPages = new ArrayList<>();
+        IncrementalCrawler.CrawlResult result = crawl(page -> {
+            fetchedPages.add(page);
+            return FIXTURE_FETCHER.fetch(page);
+        });
+
+        assertEquals(Arrays.asList(1, 2, 3), fetchedPages);
+        assertEquals(5, result.getUpsertedCount());
+        assertEquals(5, articleRepository.searchArticlesBy(null).size());
+    }
+
+    private IncrementalCrawler.CrawlResult crawl(PageFetcher pageFetcher) {
+        IncrementalCrawler.CrawlResult result = new IncrementalCrawler(new JavaMagazineReader(pageFetcher), articleRepository)
+                .crawl();
+        client().admin().indices().prepareRefresh().get();
+        return result;
+    }
+}
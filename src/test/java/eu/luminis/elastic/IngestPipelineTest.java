@@ -0,0 +1,86 @@
+package eu.luminis.elastic;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class IngestPipelineTest {
+    private static final PageFetcher FIXTURE_FETCHER = IngestPipelineTest::fetchFixture;
+
+    @Test
+    public void checkIngestAllPages() {
+        List<Article> articles = new ArrayList<>();
+
+        IngestPipeline.IngestResult result = new IngestPipeline(FIXTURE_FETCHER)
+                .setFetchThreads(2)
+                .setParseThreads(2)
+                .setQueueCapacity(1)
+                .ingest(1, 2, articles::add);
+
+        assertEquals(5, result.getArticleCount());
+        assertEquals(5, articles.size());
+        assertEquals(Collections.emptyList(), result.getFailedPages());
+
+        List<String> titles = articles.stream().map(Article::getTitle).sorted().collect(Collectors.toList());
+        assertEquals("Elasticsearch vanuit Java", titles.get(0));
+    }
+
+    @Test
+    public void checkIngestReportsFailedPages() {
+        List<Article> articles = new ArrayList<>();
+
+        IngestPipeline.IngestResult result = new IngestPipeline(FIXTURE_FETCHER).ingest(1, 4, articles::add);
+
+        assertEquals(5, articles.size());
+        assertEquals(3, result.getFailedPages().get(0).intValue());
+        assertEquals(4, result.getFailedPages().get(1).intValue());
+    }
+
+    @Test(timeout = 10000)
+    public void checkIngestReportsPagesFailingWithError() {
+        List<Article> articles = new ArrayList<>();
+
+        IngestPipeline.IngestResult result = new IngestPipeline(page -> {
+            if (page == 2) {
+                throw new NoClassDefFoundError("Simulated error fetching page 2");
+            }
+            return fetchFixture(page);
+        }).setFetchThreads(1).ingest(1, 2, articles::add);
+
+        assertEquals(3, articles.size());
+        assertEquals(Collections.singletonList(2), result.getFailedPages());
+    }
+
+    @Test
+    public void checkParseFixturePage() throws IOException {
+        List<Article> articles = new JavaMagazineReader(FIXTURE_FETCHER).startReading(1);
+
+        assertEquals(3, articles.size());
+        Article article = articles.get(0);
+        assertEquals("Java 9 modules in de praktijk", article.getTitle());
+        assertEquals("Sander Mak", article.getAuthor());
+        assertEquals("Java Magazine 1 2017", article.getIssue());
+        assertEquals("http://www.nljug.org/databasejava/java-9-modules/", article.getLink());
+        assertEquals("Een introductie in het modulesysteem van Java 9.", article.getDescription());
+        assertEquals("unknown", articles.get(2).getIssue());
+    }
+
+    static Document fetchFixture(int page) throws IOException {
+        try (InputStream inputStream = IngestPipelineTest.class.getResourceAsStream("/fixtures/page-" + page + ".html")) {
+            if (inputStream == null) {
+                throw new FileNotFoundException("No fixture for page " + page);
+            }
+            return Jsoup.parse(inputStream, "UTF-8", JsoupPageFetcher.BASE_URL + page);
+        }
+    }
+}
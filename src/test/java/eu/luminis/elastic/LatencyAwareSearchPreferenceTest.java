@@ -0,0 +1,50 @@
+package eu.luminis.elastic;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LatencyAwareSearchPreferenceTest {
+    private final LatencyAwareSearchPreference preference =
+            new LatencyAwareSearchPreference(() -> Arrays.asList("node-a", "node-b", "node-c"));
+
+    @Test
+    public void checkUnmeasuredNodesAreTriedFirst() {
+        assertEquals("_prefer_nodes:node-a", preference.preference());
+        preference.onResponse("_prefer_nodes:node-a", 1000);
+        assertEquals("_prefer_nodes:node-b", preference.preference());
+    }
+
+    @Test
+    public void checkFastestNodeIsPreferred() {
+        preference.onResponse("_prefer_nodes:node-a", 5_000_000);
+        preference.onResponse("_prefer_nodes:node-b", 1_000_000);
+        preference.onResponse("_prefer_nodes:node-c", 9_000_000);
+
+        assertEquals("_prefer_nodes:node-b", preference.preference());
+    }
+
+    @Test
+    public void checkTimedOutNodeIsAvoided() {
+        preference.onResponse("_prefer_nodes:node-a", 5_000_000);
+        preference.onResponse("_prefer_nodes:node-b", 1_000_000);
+        preference.onResponse("_prefer_nodes:node-c", 9_000_000);
+
+        preference.onFailure("_prefer_nodes:node-b");
+
+        assertEquals("_prefer_nodes:node-a", preference.preference());
+        assertEquals("_prefer_nodes:node-c", preference.retryPreference("_prefer_nodes:node-a"));
+    }
+
+    @Test
+    public void checkWithoutDataNodes() {
+        LatencyAwareSearchPreference noNodes = new LatencyAwareSearchPreference(Collections::emptyList);
+
+        assertNull(noNodes.preference());
+        assertNull(noNodes.retryPreference("_prefer_nodes:node-a"));
+    }
+}
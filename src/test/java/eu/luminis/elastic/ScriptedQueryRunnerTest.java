@@ -0,0 +1,98 @@
+package eu.luminis.elastic;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.FilterClient;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScriptedQueryRunnerTest extends ElasticTestCase {
+    private ScriptedQueryRunner runner;
+
+    @Before
+    public void setup() {
+        ArticleRepository articleRepository = new ArticleRepository(client());
+        articleRepository.deleteAllIndexes();
+        articleRepository.createIndex();
+        articleRepository.indexArticle(new Article().setTitle("Test Bob").setAuthor("Author 1")
+                .setDescription("Description about the man Bob").setLink("/link/bob").setIssue("issue1")
+                .setPostDate(LocalDate.of(2017, 3, 1)));
+        articleRepository.indexArticle(new Article().setTitle("Test Alice").setAuthor("Author 2")
+                .setDescription("Description about the woman Alice").setLink("/link/alice").setIssue("issue1")
+                .setPostDate(LocalDate.of(2017, 5, 1)));
+        client().admin().indices().prepareRefresh().get();
+
+        runner = new ScriptedQueryRunner(new AsyncArticleRepository(client()), 2);
+    }
+
+    @Test
+    public void checkRunScript() throws Exception {
+        String script = "# smoke test\n" +
+                "authors\n" +
+                "\n" +
+                "issues\n" +
+                "search woman\n" +
+                "search man\n" +
+                "author Author 1\n" +
+                "issue issue1\n" +
+                "unknown query\n";
+        StringWriter output = new StringWriter();
+
+        ScriptedQueryRunner.RunSummary summary = runner.run(new BufferedReader(new StringReader(script)),
+                new PrintWriter(output));
+
+        assertEquals(6, summary.getQueryCount());
+        assertEquals(1, summary.getErrorCount());
+        assertEquals(2, summary.getLatencies().get("search").getTotalCount());
+        assertTrue(output.toString().contains("5: search woman\n  Test Alice [Author 2-01 mei 2017]"));
+        assertTrue(output.toString().contains("2: authors\n  Author 1 (1)\n  Author 2 (1)"));
+        assertTrue(output.toString().contains("9: unknown action unknown"));
+
+        StringWriter report = new StringWriter();
+        summary.print(new PrintWriter(report));
+        assertTrue(report.toString().startsWith("6 queries, 1 errors in "));
+    }
+
+    @Test
+    public void checkRunScriptWithRejectedQueries() throws Exception {
+        // Searches sent through this client fail before they are sent, like a client that was closed
+        Client rejectingClient = new FilterClient(client()) {
+            @Override
+            protected <Request extends ActionRequest, Response extends ActionResponse,
+                    RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>> void doExecute(
+                    Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+                if (action == SearchAction.INSTANCE) {
+                    throw new IllegalStateException("Client is closed");
+                }
+                super.doExecute(action, request, listener);
+            }
+        };
+        ScriptedQueryRunner singleQueryRunner = new ScriptedQueryRunner(new AsyncArticleRepository(rejectingClient), 1);
+        StringWriter output = new StringWriter();
+
+        ScriptedQueryRunner.RunSummary summary = singleQueryRunner.run(
+                new BufferedReader(new StringReader("search woman\nsearch man\n")), new PrintWriter(output));
+
+        assertEquals(2, summary.getErrorCount());
+        assertTrue(output.toString().contains("2: search man failed: Client is closed"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkConcurrencyMustBePositive() {
+        new ScriptedQueryRunner(new AsyncArticleRepository(client()), 0);
+    }
+}